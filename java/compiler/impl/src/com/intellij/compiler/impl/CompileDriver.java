@@ -109,6 +109,7 @@ import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.jps.api.CmdlineProtoUtil;
 import org.jetbrains.jps.api.CmdlineRemoteProto;
 import org.jetbrains.jps.api.RequestFuture;
+import org.jetbrains.jps.incremental.BuildTrace;
 import org.jetbrains.jps.model.java.JavaSourceRootType;
 
 import javax.swing.*;
@@ -626,6 +627,18 @@ public class CompileDriver {
           case CUSTOM_BUILDER_MESSAGE:
             if (event.hasCustomBuilderMessage()) {
               CmdlineRemoteProto.Message.BuilderMessage.BuildEvent.CustomBuilderMessage message = event.getCustomBuilderMessage();
+              if (BuildTrace.BUILDER_ID.equals(message.getBuilderId())) {
+                if (BuildTrace.BUILDER_TIME_MESSAGE_TYPE.equals(message.getMessageType())) {
+                  LOG.info("Build trace: builder time " + message.getMessageText() + " ms");
+                }
+                else if (BuildTrace.ACTIVITY_TIME_MESSAGE_TYPE.equals(message.getMessageType()) && LOG.isDebugEnabled()) {
+                  final String separator = String.valueOf(BuildTrace.ACTIVITY_FIELD_SEPARATOR);
+                  final List<String> fields = StringUtil.split(message.getMessageText(), separator, true, false);
+                  if (fields.size() == 4) {
+                    LOG.debug("Build trace: " + fields.get(0) + " '" + fields.get(1) + "' [" + fields.get(2) + "] took " + fields.get(3) + " ms");
+                  }
+                }
+              }
               messageBus.syncPublisher(CustomBuilderMessageHandler.TOPIC).messageReceived(message.getBuilderId(), message.getMessageType(),
                                                                                           message.getMessageText());
             }
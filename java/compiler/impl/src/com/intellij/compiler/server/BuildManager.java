@@ -857,6 +857,17 @@ public class
     if (Registry.is("compiler.process.use.external.javac")) {
       cmdLine.addParameter("-D"+ GlobalOptions.USE_EXTERNAL_JAVAC_OPTION);
     }
+    if (Registry.is("compiler.process.use.content.hashes")) {
+      cmdLine.addParameter("-D"+ GlobalOptions.USE_CONTENT_HASHES_OPTION + "=true");
+    }
+    final String outputCacheDir = Registry.stringValue("compiler.process.output.cache.dir");
+    if (!StringUtil.isEmptyOrSpaces(outputCacheDir)) {
+      cmdLine.addParameter("-D"+ GlobalOptions.BUILD_OUTPUT_CACHE_DIR_OPTION + "=" + FileUtil.toSystemIndependentName(outputCacheDir));
+    }
+    final String traceFile = Registry.stringValue("compiler.process.trace.file");
+    if (!StringUtil.isEmptyOrSpaces(traceFile)) {
+      cmdLine.addParameter("-D"+ GlobalOptions.BUILD_TRACE_FILE_OPTION + "=" + FileUtil.toSystemIndependentName(traceFile));
+    }
 
     // javac's VM should use the same default locale that IDEA uses in order for javac to print messages in 'correct' language
     if (mySystemCharset != null) {
@@ -11,6 +11,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -22,13 +23,12 @@ public class InstrumentationClassFinder {
   private static final PseudoClass[] EMPTY_PSEUDOCLASS_ARRAY = new PseudoClass[0];
   private static final String CLASS_RESOURCE_EXTENSION = ".class";
   private static final URL[] URL_EMPTY_ARRAY = new URL[0];
-  private final Map<String, PseudoClass> myLoaded = new HashMap<String, PseudoClass>(); // className -> class object
+  private final Map<String, PseudoClass> myLoaded = new ConcurrentHashMap<String, PseudoClass>(); // className -> class object, may be accessed concurrently
   private final ClassFinderClasspath myPlatformClasspath;
   private final ClassFinderClasspath myClasspath;
   private final URL[] myPlatformUrls;
   private final URL[] myClasspathUrls;
   private ClassLoader myLoader;
-  private byte[] myBuffer;
 
   public InstrumentationClassFinder(final URL[] cp) {
     this(URL_EMPTY_ARRAY, cp);
@@ -90,7 +90,6 @@ public class InstrumentationClassFinder {
     myPlatformClasspath.releaseResources();
     myClasspath.releaseResources();
     myLoaded.clear();
-    myBuffer = null;
     myLoader = null;
   }
 
@@ -646,7 +645,7 @@ public class InstrumentationClassFinder {
         myURL = url;
       }
 
-      public void releaseResources() {
+      public synchronized void releaseResources() {
         final ZipFile zipFile = myZipFile;
         if (zipFile != null) {
           myZipFile = null;
@@ -659,7 +658,7 @@ public class InstrumentationClassFinder {
         }
       }
 
-      private ZipFile acquireZipFile() throws IOException {
+      private synchronized ZipFile acquireZipFile() throws IOException {
         ZipFile zipFile = myZipFile;
         if (zipFile == null) {
           zipFile = doGetZipFile();
@@ -806,11 +805,7 @@ public class InstrumentationClassFinder {
   }
 
   public byte[] loadBytes(InputStream stream) {
-    byte[] buf = myBuffer;
-    if (buf == null) {
-      buf = new byte[512];
-      myBuffer = buf;
-    }
+    final byte[] buf = new byte[512];
 
     final ByteArrayOutputStream result = new ByteArrayOutputStream();
     try {
@@ -42,14 +42,19 @@ import java.util.*;
 public class DfaMemoryStateImpl implements DfaMemoryState {
   private final DfaValueFactory myFactory;
 
-  private final List<EqClass> myEqClasses;
+  // the collections below are shared with the copies of this state until either of them is modified, see mutable*() methods
+  private List<EqClass> myEqClasses;
   private final Stack<DfaValue> myStack;
   private TIntStack myOffsetStack;
-  private final TLongHashSet myDistinctClasses;
-  private final Map<DfaVariableValue,DfaVariableState> myVariableStates;
+  private TLongHashSet myDistinctClasses;
+  private Map<DfaVariableValue,DfaVariableState> myVariableStates;
   private final Map<DfaVariableValue,DfaVariableState> myDefaultVariableStates; 
-  private final Set<DfaVariableValue> myUnknownVariables;
+  private Set<DfaVariableValue> myUnknownVariables;
   private boolean myEphemeral;
+  private boolean myEqClassesShared;
+  private boolean myDistinctClassesShared;
+  private boolean myVariableStatesShared;
+  private boolean myUnknownVariablesShared;
 
   public DfaMemoryStateImpl(final DfaValueFactory factory) {
     myFactory = factory;
@@ -68,17 +73,52 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
     myDefaultVariableStates = toCopy.myDefaultVariableStates; // shared between all states
     
     myStack = new Stack<DfaValue>(toCopy.myStack);
-    myDistinctClasses = new TLongHashSet(toCopy.myDistinctClasses.toArray());
-    myUnknownVariables = new THashSet<DfaVariableValue>(toCopy.myUnknownVariables);
     myOffsetStack = toCopy.myOffsetStack;
 
-    myEqClasses = ContainerUtil.newArrayList(toCopy.myEqClasses);
-    myVariableStates = new THashMap<DfaVariableValue, DfaVariableState>(toCopy.myVariableStates);
-    
+    // most copies (e.g. the ones remembered for already processed branches) are never modified, so don't copy the collections eagerly
+    myDistinctClasses = toCopy.myDistinctClasses;
+    myUnknownVariables = toCopy.myUnknownVariables;
+    myEqClasses = toCopy.myEqClasses;
+    myVariableStates = toCopy.myVariableStates;
+    myDistinctClassesShared = myUnknownVariablesShared = myEqClassesShared = myVariableStatesShared = true;
+    toCopy.myDistinctClassesShared = toCopy.myUnknownVariablesShared = toCopy.myEqClassesShared = toCopy.myVariableStatesShared = true;
+
     myCachedDistinctClassPairs = toCopy.myCachedDistinctClassPairs;
     myCachedNonTrivialEqClasses = toCopy.myCachedNonTrivialEqClasses;
   }
 
+  private List<EqClass> mutableEqClasses() {
+    if (myEqClassesShared) {
+      myEqClasses = ContainerUtil.newArrayList(myEqClasses);
+      myEqClassesShared = false;
+    }
+    return myEqClasses;
+  }
+
+  private TLongHashSet mutableDistinctClasses() {
+    if (myDistinctClassesShared) {
+      myDistinctClasses = new TLongHashSet(myDistinctClasses.toArray());
+      myDistinctClassesShared = false;
+    }
+    return myDistinctClasses;
+  }
+
+  private Map<DfaVariableValue, DfaVariableState> mutableVariableStates() {
+    if (myVariableStatesShared) {
+      myVariableStates = new THashMap<DfaVariableValue, DfaVariableState>(myVariableStates);
+      myVariableStatesShared = false;
+    }
+    return myVariableStates;
+  }
+
+  private Set<DfaVariableValue> mutableUnknownVariables() {
+    if (myUnknownVariablesShared) {
+      myUnknownVariables = new THashSet<DfaVariableValue>(myUnknownVariables);
+      myUnknownVariablesShared = false;
+    }
+    return myUnknownVariables;
+  }
+
   public DfaValueFactory getFactory() {
     return myFactory;
   }
@@ -96,7 +136,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
   }
 
   boolean equalsByUnknownVariables(DfaMemoryStateImpl that) {
-    return myUnknownVariables.equals(that.myUnknownVariables);
+    return myUnknownVariables == that.myUnknownVariables || myUnknownVariables.equals(that.myUnknownVariables);
   }
 
   boolean equalsSuperficially(DfaMemoryStateImpl other) {
@@ -108,7 +148,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
   }
 
   boolean equalsByVariableStates(DfaMemoryStateImpl that) {
-    return myVariableStates.equals(that.myVariableStates);
+    return myVariableStates == that.myVariableStates || myVariableStates.equals(that.myVariableStates);
   }
 
   private Set<UnorderedPair<EqClass>> myCachedDistinctClassPairs;
@@ -268,7 +308,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
     }
     EqClass aClass = new EqClass(myFactory);
     aClass.add(dfaValue.getID());
-    myEqClasses.add(aClass);
+    mutableEqClasses().add(aClass);
 
     return myEqClasses.size() - 1;
   }
@@ -408,7 +448,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
       }
     }
 
-    myEqClasses.set(c1Index, c1 = new EqClass(c1));
+    mutableEqClasses().set(c1Index, c1 = new EqClass(c1));
     for (int i = 0; i < c2.size(); i++) {
       int c = c2.get(i);
       c1.add(c);
@@ -416,10 +456,10 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
 
     for (int i = 0; i < c2Pairs.size(); i++) {
       long c = c2Pairs.get(i);
-      myDistinctClasses.remove(c);
-      myDistinctClasses.add(createPair(c1Index, low(c) == c2Index ? high(c) : low(c)));
+      mutableDistinctClasses().remove(c);
+      mutableDistinctClasses().add(createPair(c1Index, low(c) == c2Index ? high(c) : low(c)));
     }
-    myEqClasses.set(c2Index, null);
+    mutableEqClasses().set(c2Index, null);
 
     return true;
   }
@@ -448,7 +488,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
   }
 
   private void makeClassesDistinct(int c1Index, int c2Index) {
-    myDistinctClasses.add(createPair(c1Index, c2Index));
+    mutableDistinctClasses().add(createPair(c1Index, c2Index));
   }
 
   @Override
@@ -717,7 +757,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
         EqClass c1 = myEqClasses.get(low(encodedPair));
         EqClass c2 = myEqClasses.get(high(encodedPair));
         if (c1.findConstant(false) != null && c2.findConstant(false) != null) {
-          myDistinctClasses.remove(encodedPair);
+          mutableDistinctClasses().remove(encodedPair);
         }
       }
       myCachedDistinctClassPairs = null;
@@ -765,9 +805,11 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
   void setVariableState(DfaVariableValue dfaVar, DfaVariableState state) {
     assert !myUnknownVariables.contains(dfaVar);
     if (state.equals(myDefaultVariableStates.get(dfaVar))) {
-      myVariableStates.remove(dfaVar);
-    } else {
-      myVariableStates.put(dfaVar, state);
+      if (myVariableStates.containsKey(dfaVar)) {
+        mutableVariableStates().remove(dfaVar);
+      }
+    } else if (!state.equals(myVariableStates.get(dfaVar))) {
+      mutableVariableStates().put(dfaVar, state);
     }
   }
   
@@ -804,7 +846,7 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
 
   @Override
   public void flushFields(DfaVariableValue[] fields) {
-    for (EqClass aClass : myEqClasses) {
+    for (EqClass aClass : mutableEqClasses()) {
       if (aClass != null) {
         for (DfaVariableValue value : aClass.getVariables()) {
           if (value.isFlushableByCalls()) {
@@ -828,8 +870,11 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
   public void flushVariable(@NotNull DfaVariableValue variable) {
     doFlush(variable, false);
     flushDependencies(variable);
-    myUnknownVariables.remove(variable);
-    myUnknownVariables.removeAll(myFactory.getVarFactory().getAllQualifiedBy(variable));
+    if (!myUnknownVariables.isEmpty()) {
+      Set<DfaVariableValue> unknownVariables = mutableUnknownVariables();
+      unknownVariables.remove(variable);
+      unknownVariables.removeAll(myFactory.getVarFactory().getAllQualifiedBy(variable));
+    }
   }
 
   public void flushDependencies(DfaVariableValue variable) {
@@ -861,18 +906,18 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
         int cl = varClass.get(i);
         DfaValue value = myFactory.getValue(cl);
         if (mine(idPlain, value) || idNegated >= 0 && mine(idNegated, value)) {
-          myEqClasses.set(varClassIndex, varClass = new EqClass(varClass));
+          mutableEqClasses().set(varClassIndex, varClass = new EqClass(varClass));
           varClass.remove(i);
           break;
         }
       }
 
       if (varClass.isEmpty()) {
-        myEqClasses.set(varClassIndex, null);
+        mutableEqClasses().set(varClassIndex, null);
         long[] pairs = myDistinctClasses.toArray();
         for (long pair : pairs) {
           if (low(pair) == varClassIndex || high(pair) == varClassIndex) {
-            myDistinctClasses.remove(pair);
+            mutableDistinctClasses().remove(pair);
           }
         }
       }
@@ -880,18 +925,20 @@ public class DfaMemoryStateImpl implements DfaMemoryState {
         for (long pair : myDistinctClasses.toArray()) {
           if (low(pair) == varClassIndex && myEqClasses.get(high(pair)).containsConstantsOnly() ||
               high(pair) == varClassIndex && myEqClasses.get(low(pair)).containsConstantsOnly()) {
-            myDistinctClasses.remove(pair);
+            mutableDistinctClasses().remove(pair);
           }
         }
       }
     }
 
-    myVariableStates.remove(varPlain);
-    if (varNegated != null) {
-      myVariableStates.remove(varNegated);
+    if (myVariableStates.containsKey(varPlain)) {
+      mutableVariableStates().remove(varPlain);
+    }
+    if (varNegated != null && myVariableStates.containsKey(varNegated)) {
+      mutableVariableStates().remove(varNegated);
     }
-    if (markUnknown) {
-      myUnknownVariables.add(varPlain);
+    if (markUnknown && !myUnknownVariables.contains(varPlain)) {
+      mutableUnknownVariables().add(varPlain);
     }
     myCachedNonTrivialEqClasses = null;
     myCachedDistinctClassPairs = null;
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInspection.dataFlow;
+
+import com.intellij.codeInsight.NullableNotNullManager;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Infers that source methods which can't be overridden never return null, from their return statements only. Nullable results
+ * aren't inferred: a method may return null only for some arguments (e.g. when an argument is null), and reporting every call
+ * of it would be a false positive. The result is cached until any PSI change, since it depends on the annotations of the called
+ * methods which may be in other files, so that each call site costs a lookup instead of an analysis of the body.
+ */
+public class MethodNullityInference {
+  public static final String REGISTRY_KEY = "java.dataflow.infer.method.nullity";
+
+  private MethodNullityInference() {
+  }
+
+  /**
+   * @return {@link Nullness#NOT_NULL} if all return statements of the method return values which are never null,
+   * and {@link Nullness#UNKNOWN} otherwise, if the method may be overridden or if the inference is disabled in the registry
+   */
+  @NotNull
+  public static Nullness inferNullity(@Nullable final PsiMethod method) {
+    if (method == null || method instanceof PsiCompiledElement || method.isConstructor() || !isNotOverridable(method) ||
+        !Registry.is(REGISTRY_KEY, true)) {
+      return Nullness.UNKNOWN;
+    }
+    final PsiType returnType = method.getReturnType();
+    if (!(returnType instanceof PsiClassType) && !(returnType instanceof PsiArrayType) || method.getBody() == null) {
+      return Nullness.UNKNOWN;
+    }
+
+    return CachedValuesManager.getCachedValue(method, new CachedValueProvider<Nullness>() {
+      @Nullable
+      @Override
+      public Result<Nullness> compute() {
+        return Result.create(calcNullity(method), PsiModificationTracker.MODIFICATION_COUNT);
+      }
+    });
+  }
+
+  private static boolean isNotOverridable(@NotNull PsiMethod method) {
+    if (method.hasModifierProperty(PsiModifier.PRIVATE) ||
+        method.hasModifierProperty(PsiModifier.STATIC) ||
+        method.hasModifierProperty(PsiModifier.FINAL)) {
+      return true;
+    }
+    PsiClass containingClass = method.getContainingClass();
+    return containingClass != null &&
+           (containingClass.hasModifierProperty(PsiModifier.FINAL) || containingClass instanceof PsiAnonymousClass);
+  }
+
+  @NotNull
+  private static Nullness calcNullity(@NotNull PsiMethod method) {
+    final List<PsiExpression> returnValues = ContainerUtil.newArrayList();
+    final boolean[] hasEmptyReturns = {false};
+    PsiCodeBlock body = method.getBody();
+    if (body == null) return Nullness.UNKNOWN;
+
+    body.accept(new JavaRecursiveElementWalkingVisitor() {
+      @Override
+      public void visitClass(PsiClass aClass) {
+      }
+
+      @Override
+      public void visitLambdaExpression(PsiLambdaExpression expression) {
+      }
+
+      @Override
+      public void visitReturnStatement(PsiReturnStatement statement) {
+        PsiExpression value = statement.getReturnValue();
+        if (value == null) {
+          hasEmptyReturns[0] = true;
+        }
+        else {
+          returnValues.add(value);
+        }
+      }
+    });
+    if (hasEmptyReturns[0] || returnValues.isEmpty()) return Nullness.UNKNOWN;
+
+    for (PsiExpression value : returnValues) {
+      if (!isNotNull(PsiUtil.deparenthesizeExpression(value))) return Nullness.UNKNOWN;
+    }
+    return Nullness.NOT_NULL;
+  }
+
+  private static boolean isNotNull(@Nullable PsiExpression value) {
+    if (value instanceof PsiLiteralExpression) {
+      // null literal or a malformed one
+      return ((PsiLiteralExpression)value).getValue() != null;
+    }
+    if (value instanceof PsiNewExpression || value instanceof PsiThisExpression || value instanceof PsiClassObjectAccessExpression) {
+      return true;
+    }
+    if (value instanceof PsiPolyadicExpression && ((PsiPolyadicExpression)value).getOperationTokenType() == JavaTokenType.PLUS) {
+      return true; // string concatenation
+    }
+    if (value instanceof PsiMethodCallExpression) {
+      PsiMethod callee = ((PsiMethodCallExpression)value).resolveMethod();
+      return callee != null && NullableNotNullManager.isNotNull(callee);
+    }
+    return false;
+  }
+}
@@ -664,30 +664,35 @@ public class UnusedDeclarationInspection extends GlobalInspectionTool {
 
 
     for (RefElement entry : getEntryPointsManager().getEntryPoints()) {
-      entry.accept(codeScanner);
-    }
-
-    while (codeScanner.newlyInstantiatedClassesCount() != 0) {
-      codeScanner.cleanInstantiatedClassesCount();
-      codeScanner.processDelayedMethods();
+      codeScanner.enqueue(entry);
     }
+    codeScanner.processQueue();
   }
 
   private EntryPointsManager getEntryPointsManager() {
     return getContext().getExtension(GlobalJavaInspectionContext.CONTEXT).getEntryPointsManager(getContext().getRefManager());
   }
 
+  /**
+   * Marks elements reachable from the entry points. Uses an explicit work queue instead of recursing into callees,
+   * so that long call chains don't overflow the stack, and every element's out references are walked at most once.
+   */
   private static class CodeScanner extends RefJavaVisitor {
-    private final HashMap<RefClass, HashSet<RefMethod>> myClassIDtoMethods;
-    private final HashSet<RefClass> myInstantiatedClasses;
-    private int myInstantiatedClassesCount;
-    private final HashSet<RefMethod> myProcessedMethods;
-
-    private CodeScanner() {
-      myClassIDtoMethods = new HashMap<RefClass, HashSet<RefMethod>>();
-      myInstantiatedClasses = new HashSet<RefClass>();
-      myProcessedMethods = new HashSet<RefMethod>();
-      myInstantiatedClassesCount = 0;
+    private final Map<RefClass, Set<RefMethod>> myClassToDelayedMethods = new HashMap<RefClass, Set<RefMethod>>();
+    private final Set<RefClass> myInstantiatedClasses = new HashSet<RefClass>();
+    private final Set<RefClass> myInitializedClasses = new HashSet<RefClass>();
+    private final Set<RefMethod> myProcessedMethods = new HashSet<RefMethod>();
+    private final Deque<RefElement> myQueue = new ArrayDeque<RefElement>();
+
+    private void enqueue(RefElement refElement) {
+      myQueue.add(refElement);
+    }
+
+    private void processQueue() {
+      RefElement refElement;
+      while ((refElement = myQueue.poll()) != null) {
+        refElement.accept(this);
+      }
     }
 
     @Override public void visitMethod(@NotNull RefMethod method) {
@@ -714,21 +719,16 @@ public class UnusedDeclarationInspection extends GlobalInspectionTool {
           }
 
           for (RefMethod refSub : method.getDerivedMethods()) {
-            visitMethod(refSub);
+            enqueue(refSub);
           }
         }
       }
     }
 
     @Override public void visitClass(@NotNull RefClass refClass) {
-      boolean alreadyActive = refClass.isReachable();
       ((RefClassImpl)refClass).setReachable(true);
-
-      if (!alreadyActive) {
-        // Process class's static intitializers.
-        makeClassInitializersReachable(refClass);
-      }
-
+      // Process class's static intitializers.
+      makeClassInitializersReachable(refClass);
       addInstantiatedClass(refClass);
     }
 
@@ -743,12 +743,12 @@ public class UnusedDeclarationInspection extends GlobalInspectionTool {
     private void addInstantiatedClass(RefClass refClass) {
       if (myInstantiatedClasses.add(refClass)) {
         ((RefClassImpl)refClass).setReachable(true);
-        myInstantiatedClassesCount++;
 
-        final List<RefMethod> refMethods = refClass.getLibraryMethods();
-        for (RefMethod refMethod : refMethods) {
-          refMethod.accept(this);
+        final Set<RefMethod> delayedMethods = myClassToDelayedMethods.remove(refClass);
+        if (delayedMethods != null) {
+          myQueue.addAll(delayedMethods);
         }
+        myQueue.addAll(refClass.getLibraryMethods());
         for (RefClass baseClass : refClass.getBaseClasses()) {
           addInstantiatedClass(baseClass);
         }
@@ -757,22 +757,20 @@ public class UnusedDeclarationInspection extends GlobalInspectionTool {
 
     private void makeContentReachable(RefJavaElementImpl refElement) {
       refElement.setReachable(true);
-      for (RefElement refCallee : refElement.getOutReferences()) {
-        refCallee.accept(this);
-      }
+      myQueue.addAll(refElement.getOutReferences());
     }
 
     private void makeClassInitializersReachable(RefClass refClass) {
-      for (RefElement refCallee : refClass.getOutReferences()) {
-        refCallee.accept(this);
+      if (myInitializedClasses.add(refClass)) {
+        myQueue.addAll(refClass.getOutReferences());
       }
     }
 
     private void addDelayedMethod(RefMethod refMethod) {
-      HashSet<RefMethod> methods = myClassIDtoMethods.get(refMethod.getOwnerClass());
+      Set<RefMethod> methods = myClassToDelayedMethods.get(refMethod.getOwnerClass());
       if (methods == null) {
         methods = new HashSet<RefMethod>();
-        myClassIDtoMethods.put(refMethod.getOwnerClass(), methods);
+        myClassToDelayedMethods.put(refMethod.getOwnerClass(), methods);
       }
       methods.add(refMethod);
     }
@@ -780,29 +778,6 @@ public class UnusedDeclarationInspection extends GlobalInspectionTool {
     private boolean isClassInstantiated(RefClass refClass) {
       return myInstantiatedClasses.contains(refClass);
     }
-
-    private int newlyInstantiatedClassesCount() {
-      return myInstantiatedClassesCount;
-    }
-
-    private void cleanInstantiatedClassesCount() {
-      myInstantiatedClassesCount = 0;
-    }
-
-    private void processDelayedMethods() {
-      RefClass[] instClasses = myInstantiatedClasses.toArray(new RefClass[myInstantiatedClasses.size()]);
-      for (RefClass refClass : instClasses) {
-        if (isClassInstantiated(refClass)) {
-          HashSet<RefMethod> methods = myClassIDtoMethods.get(refClass);
-          if (methods != null) {
-            RefMethod[] arMethods = methods.toArray(new RefMethod[methods.size()]);
-            for (RefMethod arMethod : arMethods) {
-              arMethod.accept(this);
-            }
-          }
-        }
-      }
-    }
   }
 
   @Override
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInspection.duplicates;
+
+import com.intellij.codeInspection.*;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiStatement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.refactoring.util.duplicates.DuplicateFragmentsIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports code fragments which have clones elsewhere in the project according to {@link DuplicateFragmentsIndex}. Running it on
+ * the whole project finds all clones, each file costing index lookups for its fragments instead of comparisons with other files.
+ */
+public class DuplicateCodeFragmentInspection extends BaseJavaLocalInspectionTool {
+  @Override
+  @NotNull
+  public String getDisplayName() {
+    return InspectionsBundle.message("inspection.duplicate.code.fragment.display.name");
+  }
+
+  @Override
+  @NotNull
+  public String getShortName() {
+    return "DuplicateCodeFragment";
+  }
+
+  @Override
+  @NotNull
+  public String getGroupDisplayName() {
+    return GENERAL_GROUP_NAME;
+  }
+
+  @Nullable
+  @Override
+  public ProblemDescriptor[] checkFile(@NotNull PsiFile file, @NotNull InspectionManager manager, boolean isOnTheFly) {
+    final VirtualFile virtualFile = file.getVirtualFile();
+    if (!(file instanceof PsiJavaFile) || virtualFile == null) return null;
+
+    final GlobalSearchScope scope = GlobalSearchScope.projectScope(file.getProject());
+    final List<ProblemDescriptor> problems = new ArrayList<ProblemDescriptor>();
+    PsiStatement[] run = null;
+    int runClones = 0;
+    for (DuplicateFragmentsIndex.Fragment fragment : DuplicateFragmentsIndex.computeFragments(file)) {
+      final int clones = countClones(fragment, virtualFile, scope);
+      if (clones == 0) continue;
+      final PsiStatement[] statements = fragment.getStatements();
+      // overlapping duplicated fragments of a block are reported as one problem
+      if (run != null && run[0].getParent() == statements[0].getParent() &&
+          run[run.length - 1].getTextRange().getEndOffset() >= statements[0].getTextRange().getStartOffset()) {
+        run = new PsiStatement[]{run[0], statements[statements.length - 1]};
+        continue;
+      }
+      if (run != null) {
+        problems.add(createProblem(manager, run, runClones, isOnTheFly));
+      }
+      run = statements;
+      runClones = clones;
+    }
+    if (run != null) {
+      problems.add(createProblem(manager, run, runClones, isOnTheFly));
+    }
+    return problems.isEmpty() ? null : problems.toArray(new ProblemDescriptor[problems.size()]);
+  }
+
+  private static int countClones(@NotNull DuplicateFragmentsIndex.Fragment fragment,
+                                 @NotNull final VirtualFile file,
+                                 @NotNull GlobalSearchScope scope) {
+    final TextRange range = fragment.getTextRange();
+    final int[] count = {0};
+    DuplicateFragmentsIndex.processOccurrences(fragment.getFingerprint(), scope, new DuplicateFragmentsIndex.OccurrenceProcessor() {
+      @Override
+      public boolean process(@NotNull VirtualFile occurrenceFile, @NotNull TextRange occurrenceRange) {
+        // repeated statements make overlapping fragments of the same file equal
+        if (!occurrenceFile.equals(file) || !occurrenceRange.intersectsStrict(range)) {
+          count[0]++;
+        }
+        return true;
+      }
+    });
+    return count[0];
+  }
+
+  @NotNull
+  private static ProblemDescriptor createProblem(@NotNull InspectionManager manager,
+                                                 @NotNull PsiStatement[] statements,
+                                                 int clones,
+                                                 boolean isOnTheFly) {
+    return manager.createProblemDescriptor(statements[0], statements[statements.length - 1],
+                                           InspectionsBundle.message("inspection.duplicate.code.fragment.problem.descriptor", clones),
+                                           ProblemHighlightType.GENERIC_ERROR_OR_WARNING, isOnTheFly);
+  }
+}
@@ -0,0 +1,71 @@
+package com.intellij.compilerOutputIndex.api.descriptor;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import gnu.trove.TObjectIntHashMap;
+import gnu.trove.TObjectIntProcedure;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Stores occurrence counts of keys. Size and counts are written as variable-length ints since almost all of them are small.
+ */
+public class ObjectIntMapDataExternalizer<K> implements DataExternalizer<TObjectIntHashMap<K>> {
+  private final DataExternalizer<K> myKeyDataExternalizer;
+
+  public ObjectIntMapDataExternalizer(final DataExternalizer<K> keyDataExternalizer) {
+    myKeyDataExternalizer = keyDataExternalizer;
+  }
+
+  @Override
+  public void save(final DataOutput out, final TObjectIntHashMap<K> map) throws IOException {
+    DataInputOutputUtil.writeINT(out, map.size());
+    final IOException[] exception = {null};
+    map.forEachEntry(new TObjectIntProcedure<K>() {
+      @Override
+      public boolean execute(final K key, final int count) {
+        try {
+          myKeyDataExternalizer.save(out, key);
+          DataInputOutputUtil.writeINT(out, count);
+          return true;
+        }
+        catch (IOException e) {
+          exception[0] = e;
+          return false;
+        }
+      }
+    });
+    if (exception[0] != null) {
+      throw exception[0];
+    }
+  }
+
+  @Override
+  public TObjectIntHashMap<K> read(final DataInput in) throws IOException {
+    final int size = DataInputOutputUtil.readINT(in);
+    final TObjectIntHashMap<K> map = new TObjectIntHashMap<K>(size);
+    for (int i = 0; i < size; i++) {
+      final K key = myKeyDataExternalizer.read(in);
+      map.put(key, DataInputOutputUtil.readINT(in));
+    }
+    return map;
+  }
+
+  public static <K, V> void addOccurrence(final Map<K, TObjectIntHashMap<V>> map, final K key, final V value) {
+    TObjectIntHashMap<V> occurrences = map.get(key);
+    if (occurrences == null) {
+      occurrences = new TObjectIntHashMap<V>();
+      map.put(key, occurrences);
+    }
+    addOccurrences(occurrences, value, 1);
+  }
+
+  public static <V> void addOccurrences(final TObjectIntHashMap<V> occurrences, final V value, final int count) {
+    if (!occurrences.adjustValue(value, count)) {
+      occurrences.put(value, count);
+    }
+  }
+}
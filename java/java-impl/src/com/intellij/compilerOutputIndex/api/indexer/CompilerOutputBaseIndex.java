@@ -99,6 +99,10 @@ public abstract class CompilerOutputBaseIndex<K, V> {
     return rewriteIndex.get();
   }
 
+  protected final Project getProject() {
+    return myProject;
+  }
+
   protected abstract ID<K, V> getIndexId();
 
   protected abstract int getVersion();
@@ -4,6 +4,7 @@ import com.intellij.compilerOutputIndex.api.fs.CompilerOutputFilesUtil;
 import com.intellij.compilerOutputIndex.api.fs.FileVisitorService;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.compiler.CompilationStatusAdapter;
+import com.intellij.openapi.compiler.CompileContext;
 import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.components.AbstractProjectComponent;
 import com.intellij.openapi.diagnostic.Logger;
@@ -33,7 +34,10 @@ import org.jetbrains.asm4.ClassReader;
 import java.io.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -44,6 +48,7 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
   private final static Logger LOG = Logger.getInstance(CompilerOutputIndexer.class);
 
   public final static String REGISTRY_KEY = "completion.enable.relevant.method.chain.suggestions";
+  public final static String FIND_USAGES_REGISTRY_KEY = "find.usages.use.compiler.output.index";
   public final static String TITLE = "Compiler output indexer in progress...";
 
   private volatile CompilerOutputBaseIndex[] myIndexes;
@@ -54,6 +59,8 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
 
   private final Lock myLock = new ReentrantLock();
   private final AtomicBoolean myInProgress = new AtomicBoolean(false);
+  private final Queue<File> myGeneratedFiles = new ConcurrentLinkedQueue<File>();
+  private final AtomicInteger myPendingGeneratedFilesCount = new AtomicInteger();
   private volatile boolean myEnabled = false;
 
   public static CompilerOutputIndexer getInstance(final Project project) {
@@ -74,23 +81,29 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
 
   @Override
   public final void projectOpened() {
-    Registry.get(REGISTRY_KEY).addListener(new RegistryValueListener.Adapter() {
+    final RegistryValueListener.Adapter listener = new RegistryValueListener.Adapter() {
       @Override
       public void afterValueChanged(final RegistryValue value) {
-        final boolean asBoolean = value.asBoolean();
-        myEnabled = asBoolean;
-        if (asBoolean) {
+        final boolean enabled = isEnabledInRegistry();
+        myEnabled = enabled;
+        if (enabled) {
           doEnable();
         }
       }
-    }, myProject);
+    };
+    Registry.get(REGISTRY_KEY).addListener(listener, myProject);
+    Registry.get(FIND_USAGES_REGISTRY_KEY).addListener(listener, myProject);
 
-    myEnabled = Registry.is(REGISTRY_KEY);
+    myEnabled = isEnabledInRegistry();
     if (myEnabled) {
       doEnable();
     }
   }
 
+  private static boolean isEnabledInRegistry() {
+    return Registry.is(REGISTRY_KEY) || Registry.is(FIND_USAGES_REGISTRY_KEY);
+  }
+
   private void doEnable() {
     if (!myInitialized) {
       myIndexes = Extensions.getExtensions(CompilerOutputBaseIndex.EXTENSION_POINT_NAME, myProject);
@@ -115,15 +128,20 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
         @Override
         public void fileGenerated(final String outputRoot, final String relativePath) {
           if (StringUtil.endsWith(relativePath, CompilerOutputFilesUtil.CLASS_FILES_SUFFIX) && myEnabled) {
-            try {
-              doIndexing(new File(outputRoot, relativePath), null);
-            }
-            catch (ProcessCanceledException e0) {
-              throw e0;
-            }
-            catch (RuntimeException e) {
-              LOG.error(e);
-            }
+            myPendingGeneratedFilesCount.incrementAndGet();
+            myGeneratedFiles.add(new File(outputRoot, relativePath));
+          }
+        }
+
+        @Override
+        public void compilationFinished(final boolean aborted, final int errors, final int warnings, final CompileContext compileContext) {
+          if (!myGeneratedFiles.isEmpty()) {
+            ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+              @Override
+              public void run() {
+                indexGeneratedFiles();
+              }
+            });
           }
         }
       }, myProject);
@@ -188,6 +206,33 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
     }
   }
 
+  /**
+   * Indexes only the class files reported by the build since the last call, instead of visiting all output directories.
+   */
+  private void indexGeneratedFiles() {
+    myLock.lock();
+    try {
+      File file;
+      while ((file = myGeneratedFiles.poll()) != null) {
+        if (myProject.isDisposed()) {
+          return;
+        }
+        try {
+          doIndexing(file, null);
+        }
+        catch (RuntimeException e) {
+          LOG.error(e);
+        }
+        finally {
+          myPendingGeneratedFilesCount.decrementAndGet();
+        }
+      }
+    }
+    finally {
+      myLock.unlock();
+    }
+  }
+
   public void reindexAllProjectInBackground() {
     if (myInProgress.compareAndSet(false, true)) {
       ProgressManager.getInstance().run(new Task.Backgroundable(myProject, TITLE) {
@@ -229,7 +274,7 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
     ProgressManager.checkCanceled();
     final long currentTimeStamp = file.lastModified();
     if (timestamp == null || timestamp != currentTimeStamp) {
-      putTimestamp(filePath, currentTimeStamp);
+      removeTimestamp(filePath);
       final ClassReader reader;
       InputStream is = null;
       try {
@@ -237,7 +282,6 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
         reader = new ClassReader(is);
       }
       catch (IOException e) {
-        removeTimestamp(filePath);
         return;
       }
       finally {
@@ -257,6 +301,7 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
         for (final CompilerOutputBaseIndex index : myIndexes) {
           index.update(id, reader);
         }
+        putTimestamp(filePath, currentTimeStamp);
       }
       catch (RuntimeException e) {
         LOG.error(String.format("can't index file: %s", file.getAbsolutePath()), e);
@@ -280,6 +325,42 @@ public class CompilerOutputIndexer extends AbstractProjectComponent {
     }
   }
 
+  /**
+   * @return true if some class files reported by the build are not indexed yet, so the classes of a source file may be indexed partially
+   */
+  public boolean hasPendingGeneratedFiles() {
+    return myPendingGeneratedFilesCount.get() > 0;
+  }
+
+  /**
+   * @return true if the class file was indexed and hasn't changed since then
+   */
+  public boolean isUpToDate(@NotNull final File classFile) {
+    if (!myInitialized || myInProgress.get()) {
+      return false;
+    }
+    final String filePath;
+    try {
+      filePath = classFile.getCanonicalPath();
+    }
+    catch (IOException e) {
+      return false;
+    }
+    final Long timestamp = getTimestamp(filePath);
+    return timestamp != null && timestamp == classFile.lastModified();
+  }
+
+  @Nullable
+  public String getIndexedFilePath(final int id) {
+    try {
+      return myFileEnumerator.valueOf(id);
+    }
+    catch (IOException e) {
+      LOG.error(e);
+      return null;
+    }
+  }
+
   private void removeTimestamp(final String fileId) {
     try {
       myFileTimestampsIndex.remove(fileId);
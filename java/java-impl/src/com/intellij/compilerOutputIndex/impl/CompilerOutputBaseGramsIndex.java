@@ -1,33 +1,38 @@
 package com.intellij.compilerOutputIndex.impl;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
+import com.intellij.compilerOutputIndex.api.descriptor.ObjectIntMapDataExternalizer;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputBaseIndex;
 import com.intellij.util.indexing.StorageException;
 import com.intellij.util.indexing.ValueContainer;
 import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.TObjectIntHashMap;
+import gnu.trove.TObjectIntProcedure;
 
 import java.util.TreeSet;
 
 /**
  * @author Dmitry Batkovich <dmitry.batkovich@jetbrains.com>
  */
-public abstract class CompilerOutputBaseGramsIndex<K> extends CompilerOutputBaseIndex<K, Multiset<MethodIncompleteSignature>> {
+public abstract class CompilerOutputBaseGramsIndex<K> extends CompilerOutputBaseIndex<K, TObjectIntHashMap<MethodIncompleteSignature>> {
 
   protected CompilerOutputBaseGramsIndex(final KeyDescriptor<K> keyDescriptor) {
-    super(keyDescriptor, new GuavaHashMultiSetExternalizer<MethodIncompleteSignature>(MethodIncompleteSignature.createKeyDescriptor()));
+    super(keyDescriptor, new ObjectIntMapDataExternalizer<MethodIncompleteSignature>(MethodIncompleteSignature.createKeyDescriptor()));
   }
 
   public TreeSet<UsageIndexValue> getValues(final K key) {
     try {
-      final ValueContainer<Multiset<MethodIncompleteSignature>> valueContainer = myIndex.getData(key);
-      final Multiset<MethodIncompleteSignature> rawValues = HashMultiset.create();
-      valueContainer.forEach(new ValueContainer.ContainerAction<Multiset<MethodIncompleteSignature>>() {
+      final ValueContainer<TObjectIntHashMap<MethodIncompleteSignature>> valueContainer = myIndex.getData(key);
+      final TObjectIntHashMap<MethodIncompleteSignature> rawValues = new TObjectIntHashMap<MethodIncompleteSignature>();
+      valueContainer.forEach(new ValueContainer.ContainerAction<TObjectIntHashMap<MethodIncompleteSignature>>() {
         @Override
-        public boolean perform(final int id, final Multiset<MethodIncompleteSignature> values) {
-          for (final Multiset.Entry<MethodIncompleteSignature> entry : values.entrySet()) {
-            rawValues.add(entry.getElement(), entry.getCount());
-          }
+        public boolean perform(final int id, final TObjectIntHashMap<MethodIncompleteSignature> values) {
+          values.forEachEntry(new TObjectIntProcedure<MethodIncompleteSignature>() {
+            @Override
+            public boolean execute(final MethodIncompleteSignature signature, final int count) {
+              ObjectIntMapDataExternalizer.addOccurrences(rawValues, signature, count);
+              return true;
+            }
+          });
           return true;
         }
       });
@@ -37,11 +42,15 @@ public abstract class CompilerOutputBaseGramsIndex<K> extends CompilerOutputBase
     }
   }
 
-  private static TreeSet<UsageIndexValue> rawValuesToValues(final Multiset<MethodIncompleteSignature> rawValues) {
+  private static TreeSet<UsageIndexValue> rawValuesToValues(final TObjectIntHashMap<MethodIncompleteSignature> rawValues) {
     final TreeSet<UsageIndexValue> values = new TreeSet<UsageIndexValue>();
-    for (final Multiset.Entry<MethodIncompleteSignature> entry : rawValues.entrySet()) {
-      values.add(new UsageIndexValue(entry.getElement(), entry.getCount()));
-    }
+    rawValues.forEachEntry(new TObjectIntProcedure<MethodIncompleteSignature>() {
+      @Override
+      public boolean execute(final MethodIncompleteSignature signature, final int count) {
+        values.add(new UsageIndexValue(signature, count));
+        return true;
+      }
+    });
     return values;
   }
 }
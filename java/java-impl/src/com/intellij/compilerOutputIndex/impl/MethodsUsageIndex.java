@@ -1,7 +1,6 @@
 package com.intellij.compilerOutputIndex.impl;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
+import com.intellij.compilerOutputIndex.api.descriptor.ObjectIntMapDataExternalizer;
 import com.intellij.compilerOutputIndex.api.fs.AsmUtil;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
 import com.intellij.openapi.project.Project;
@@ -9,6 +8,7 @@ import com.intellij.util.indexing.DataIndexer;
 import com.intellij.util.indexing.ID;
 import com.intellij.util.indexing.StorageException;
 import com.intellij.util.io.EnumeratorStringDescriptor;
+import gnu.trove.TObjectIntHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.asm4.ClassReader;
 import org.jetbrains.asm4.Opcodes;
@@ -31,23 +31,23 @@ public class MethodsUsageIndex extends CompilerOutputBaseGramsIndex<String> {
   }
 
   @Override
-  protected DataIndexer<String, Multiset<MethodIncompleteSignature>, ClassReader> getIndexer() {
-    return new DataIndexer<String, Multiset<MethodIncompleteSignature>, ClassReader>() {
+  protected DataIndexer<String, TObjectIntHashMap<MethodIncompleteSignature>, ClassReader> getIndexer() {
+    return new DataIndexer<String, TObjectIntHashMap<MethodIncompleteSignature>, ClassReader>() {
       @NotNull
       @Override
-      public Map<String, Multiset<MethodIncompleteSignature>> map(final ClassReader inputData) {
-        final Map<String, Multiset<MethodIncompleteSignature>> map = new HashMap<String, Multiset<MethodIncompleteSignature>>();
+      public Map<String, TObjectIntHashMap<MethodIncompleteSignature>> map(final ClassReader inputData) {
+        final Map<String, TObjectIntHashMap<MethodIncompleteSignature>> map = new HashMap<String, TObjectIntHashMap<MethodIncompleteSignature>>();
         for (final ClassFileData.MethodData data : new ClassFileData(inputData).getMethodDatas()) {
           for (final ClassFileData.MethodInsnSignature ms : data.getMethodInsnSignatures()) {
             final String ownerClassName = AsmUtil.getQualifiedClassName(ms.getOwner());
             final String returnType = AsmUtil.getReturnType(ms.getDesc());
             if (MethodIncompleteSignature.CONSTRUCTOR_METHOD_NAME.equals(ms.getName())) {
-              addToIndex(map, ownerClassName, MethodIncompleteSignature.constructor(ownerClassName));
+              ObjectIntMapDataExternalizer.addOccurrence(map, ownerClassName, MethodIncompleteSignature.constructor(ownerClassName));
             }
             else {
               final boolean isStatic = ms.getOpcode() == Opcodes.INVOKESTATIC;
               if (!ownerClassName.equals(returnType) || isStatic) {
-                addToIndex(map, returnType, new MethodIncompleteSignature(ownerClassName, returnType, ms.getName(), isStatic));
+                ObjectIntMapDataExternalizer.addOccurrence(map, returnType, new MethodIncompleteSignature(ownerClassName, returnType, ms.getName(), isStatic));
               }
             }
           }
@@ -69,23 +69,12 @@ public class MethodsUsageIndex extends CompilerOutputBaseGramsIndex<String> {
   }
 
   @Override
-  protected ID<String, Multiset<MethodIncompleteSignature>> getIndexId() {
+  protected ID<String, TObjectIntHashMap<MethodIncompleteSignature>> getIndexId() {
     return generateIndexId(MethodsUsageIndex.class);
   }
 
   @Override
   protected int getVersion() {
-    return 0;
-  }
-
-  private static void addToIndex(final Map<String, Multiset<MethodIncompleteSignature>> map,
-                                 final String key,
-                                 final MethodIncompleteSignature mi) {
-    Multiset<MethodIncompleteSignature> occurrences = map.get(key);
-    if (occurrences == null) {
-      occurrences = HashMultiset.create();
-      map.put(key, occurrences);
-    }
-    occurrences.add(mi);
+    return 1;
   }
 }
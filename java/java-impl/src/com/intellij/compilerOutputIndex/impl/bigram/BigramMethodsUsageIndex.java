@@ -1,7 +1,6 @@
 package com.intellij.compilerOutputIndex.impl.bigram;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
+import com.intellij.compilerOutputIndex.api.descriptor.ObjectIntMapDataExternalizer;
 import com.intellij.compilerOutputIndex.api.fs.AsmUtil;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
 import com.intellij.compilerOutputIndex.impl.ClassFileData;
@@ -12,6 +11,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.util.SmartList;
 import com.intellij.util.indexing.DataIndexer;
 import com.intellij.util.indexing.ID;
+import gnu.trove.TObjectIntHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.asm4.ClassReader;
 import org.jetbrains.asm4.Opcodes;
@@ -31,37 +31,31 @@ public class BigramMethodsUsageIndex extends CompilerOutputBaseGramsIndex<Method
   }
 
   @Override
-  protected ID<MethodIncompleteSignature, Multiset<MethodIncompleteSignature>> getIndexId() {
+  protected ID<MethodIncompleteSignature, TObjectIntHashMap<MethodIncompleteSignature>> getIndexId() {
     return generateIndexId(BigramMethodsUsageIndex.class);
   }
 
   @Override
   protected int getVersion() {
-    return 0;
+    return 1;
   }
 
   @Override
-  protected DataIndexer<MethodIncompleteSignature, Multiset<MethodIncompleteSignature>, ClassReader> getIndexer() {
+  protected DataIndexer<MethodIncompleteSignature, TObjectIntHashMap<MethodIncompleteSignature>, ClassReader> getIndexer() {
     //
     // not fair way, but works fast
     //
-    return new DataIndexer<MethodIncompleteSignature,Multiset<MethodIncompleteSignature>,ClassReader>() {
+    return new DataIndexer<MethodIncompleteSignature,TObjectIntHashMap<MethodIncompleteSignature>,ClassReader>() {
       @NotNull
       @Override
-      public Map<MethodIncompleteSignature, Multiset<MethodIncompleteSignature>> map(final ClassReader inputData) {
-        final Map<MethodIncompleteSignature, Multiset<MethodIncompleteSignature>> map =
-          new HashMap<MethodIncompleteSignature, Multiset<MethodIncompleteSignature>>();
+      public Map<MethodIncompleteSignature, TObjectIntHashMap<MethodIncompleteSignature>> map(final ClassReader inputData) {
+        final Map<MethodIncompleteSignature, TObjectIntHashMap<MethodIncompleteSignature>> map =
+          new HashMap<MethodIncompleteSignature, TObjectIntHashMap<MethodIncompleteSignature>>();
         for (final ClassFileData.MethodData data : new ClassFileData(inputData).getMethodDatas()) {
           final SimpleBigramsExtractor extractor = new SimpleBigramsExtractor(new SimpleBigramsExtractor.BigramMethodIncompleteSignatureProcessor() {
             @Override
             public void process(final Bigram<MethodIncompleteSignature> bigram) {
-              final MethodIncompleteSignature secondGram = bigram.getSecond();
-              Multiset<MethodIncompleteSignature> occurrences = map.get(secondGram);
-              if (occurrences == null) {
-                occurrences = HashMultiset.create();
-                map.put(secondGram, occurrences);
-              }
-              occurrences.add(bigram.getFirst());
+              ObjectIntMapDataExternalizer.addOccurrence(map, bigram.getSecond(), bigram.getFirst());
             }
           });
           for (final ClassFileData.MethodInsnSignature ms : data.getMethodInsnSignatures()) {
@@ -0,0 +1,313 @@
+package com.intellij.compilerOutputIndex.impl.references;
+
+import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.CompilerModuleExtension;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.CodeReferencesScopeOptimizer;
+import com.intellij.psi.search.DelegatingGlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.util.ClassUtil;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Excludes from usage search the Java files whose compiled classes are up to date and don't reference a member according to
+ * {@link MemberReferencesIndex}. Doesn't handle static members and compile-time constants since javac doesn't keep all references to
+ * them (static imports, inlined constant values) in the class files. Files with constant conditions are kept as well since javac doesn't
+ * generate code for the branches which are never taken.
+ */
+public class CompilerOutputReferencesScopeOptimizer extends CodeReferencesScopeOptimizer {
+  private static final int MAX_HIERARCHY_SIZE = 100;
+
+  @Nullable
+  @Override
+  public GlobalSearchScope getScopeWithCodeReferences(@NotNull final PsiElement element) {
+    if (!(element instanceof PsiMethod) && !(element instanceof PsiField) || !Registry.is(CompilerOutputIndexer.FIND_USAGES_REGISTRY_KEY)) {
+      return null;
+    }
+    final Project project = element.getProject();
+    final CompilerOutputIndexer indexer = CompilerOutputIndexer.getInstance(project);
+    if (!indexer.isEnabled() || indexer.hasPendingGeneratedFiles()) {
+      // while the classes reported by the build are being indexed, only some classes of a source file may be indexed
+      return null;
+    }
+
+    final PsiMember member = (PsiMember)element;
+    final PsiClass aClass = member.getContainingClass();
+    if (aClass == null || member.hasModifierProperty(PsiModifier.STATIC)) {
+      return null;
+    }
+    final String name = member.getName();
+    if (name == null) {
+      return null;
+    }
+    final int parametersCount;
+    if (member instanceof PsiMethod) {
+      final PsiMethod method = (PsiMethod)member;
+      if (method.isConstructor() || PsiUtil.isAnnotationMethod(method)) {
+        return null;
+      }
+      parametersCount = method.getParameterList().getParametersCount();
+    }
+    else {
+      if (((PsiField)member).computeConstantValue() != null) {
+        return null;
+      }
+      parametersCount = -1;
+    }
+
+    final Set<PsiClass> hierarchy = collectHierarchy(aClass, project);
+    if (hierarchy == null) {
+      return null;
+    }
+    final Set<String> keys = new HashSet<String>();
+    final Set<VirtualFile> filesWithLocalClasses = new HashSet<VirtualFile>();
+    for (final PsiClass psiClass : hierarchy) {
+      final String jvmName = ClassUtil.getJVMClassName(psiClass);
+      if (jvmName != null) {
+        keys.add(parametersCount < 0
+                 ? MemberReferencesIndex.fieldKey(jvmName, name)
+                 : MemberReferencesIndex.methodKey(jvmName, name, parametersCount));
+      }
+      else {
+        // local and anonymous classes can be referenced only from their own file
+        final PsiFile file = psiClass.getContainingFile();
+        final VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        if (virtualFile == null) {
+          return null;
+        }
+        filesWithLocalClasses.add(virtualFile);
+      }
+    }
+    if (parametersCount >= 0) {
+      keys.add(MemberReferencesIndex.methodKey(CommonClassNames.JAVA_LANG_OBJECT, name, parametersCount));
+    }
+
+    final Set<String> referencingSources = MemberReferencesIndex.getInstance(project).getReferencingSourceFiles(keys);
+    return new CompiledReferencesScope(project, indexer, referencingSources, filesWithLocalClasses);
+  }
+
+  @Nullable
+  private static Set<PsiClass> collectHierarchy(@NotNull final PsiClass aClass, @NotNull final Project project) {
+    final Set<PsiClass> hierarchy = new HashSet<PsiClass>();
+    InheritanceUtil.processSupers(aClass, true, new Processor<PsiClass>() {
+      @Override
+      public boolean process(final PsiClass psiClass) {
+        hierarchy.add(psiClass);
+        return true;
+      }
+    });
+    final boolean completed = ClassInheritorsSearch.search(aClass, GlobalSearchScope.allScope(project), true).forEach(new Processor<PsiClass>() {
+      @Override
+      public boolean process(final PsiClass inheritor) {
+        hierarchy.add(inheritor);
+        return hierarchy.size() <= MAX_HIERARCHY_SIZE;
+      }
+    });
+    return completed ? hierarchy : null;
+  }
+
+  private static class CompiledReferencesScope extends DelegatingGlobalSearchScope {
+    private final Project myProject;
+    private final CompilerOutputIndexer myIndexer;
+    private final Set<String> myReferencingSources;
+    private final Set<VirtualFile> myFilesWithLocalClasses;
+    private final ProjectFileIndex myFileIndex;
+    private final Map<VirtualFile, Boolean> myCache = new ConcurrentHashMap<VirtualFile, Boolean>();
+    private final Map<File, String[]> myOutputDirectoryFiles = new ConcurrentHashMap<File, String[]>();
+
+    private CompiledReferencesScope(@NotNull final Project project,
+                                    @NotNull final CompilerOutputIndexer indexer,
+                                    @NotNull final Set<String> referencingSources,
+                                    @NotNull final Set<VirtualFile> filesWithLocalClasses) {
+      super(GlobalSearchScope.allScope(project), referencingSources, filesWithLocalClasses);
+      myProject = project;
+      myIndexer = indexer;
+      myReferencingSources = referencingSources;
+      myFilesWithLocalClasses = filesWithLocalClasses;
+      myFileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+    }
+
+    @Override
+    public boolean contains(final VirtualFile file) {
+      Boolean result = myCache.get(file);
+      if (result == null) {
+        result = mayReference(file);
+        myCache.put(file, result);
+      }
+      return result;
+    }
+
+    private boolean mayReference(@NotNull final VirtualFile file) {
+      if (file.getFileType() != JavaFileType.INSTANCE ||
+          myFilesWithLocalClasses.contains(file) ||
+          FileDocumentManager.getInstance().isFileModified(file)) {
+        return true;
+      }
+      final File outputDir = getOutputDirectory(file);
+      final List<String> classNames = getTopLevelClassNames(file);
+      if (outputDir == null || classNames == null || classNames.isEmpty()) {
+        return true;
+      }
+      // references from every class compiled from the file must be indexed, including nested and anonymous ones
+      for (String className : classNames) {
+        if (!isIndexedAfterModification(new File(outputDir, className + ".class"), file)) {
+          return true;
+        }
+      }
+      for (String outputFileName : getOutputDirectoryFiles(outputDir)) {
+        if (outputFileName.endsWith(".class") && isNestedClassFileOf(outputFileName, classNames) &&
+            !isIndexedAfterModification(new File(outputDir, outputFileName), file)) {
+          return true;
+        }
+      }
+      try {
+        if (myReferencingSources.contains(new File(outputDir.getCanonicalFile(), file.getName()).getPath())) {
+          return true;
+        }
+      }
+      catch (IOException e) {
+        return true;
+      }
+      // javac drops code guarded by constant conditions, so the references from there aren't in the index
+      return hasConstantConditions(file);
+    }
+
+    private boolean hasConstantConditions(@NotNull final VirtualFile file) {
+      return ApplicationManager.getApplication().runReadAction(new Computable<Boolean>() {
+        @Override
+        public Boolean compute() {
+          final PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
+          if (psiFile == null) {
+            return true;
+          }
+          final PsiConstantEvaluationHelper helper = JavaPsiFacade.getInstance(myProject).getConstantEvaluationHelper();
+          final boolean[] found = {false};
+          psiFile.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitIfStatement(PsiIfStatement statement) {
+              check(statement.getCondition());
+              super.visitIfStatement(statement);
+            }
+
+            @Override
+            public void visitConditionalExpression(PsiConditionalExpression expression) {
+              check(expression.getCondition());
+              super.visitConditionalExpression(expression);
+            }
+
+            @Override
+            public void visitPolyadicExpression(PsiPolyadicExpression expression) {
+              final IElementType tokenType = expression.getOperationTokenType();
+              if (tokenType == JavaTokenType.ANDAND || tokenType == JavaTokenType.OROR) {
+                for (PsiExpression operand : expression.getOperands()) {
+                  check(operand);
+                }
+              }
+              super.visitPolyadicExpression(expression);
+            }
+
+            private void check(@Nullable PsiExpression condition) {
+              if (condition != null && helper.computeConstantExpression(condition) instanceof Boolean) {
+                found[0] = true;
+                stopWalking();
+              }
+            }
+          });
+          return found[0];
+        }
+      });
+    }
+
+    private boolean isIndexedAfterModification(@NotNull final File classFile, @NotNull final VirtualFile sourceFile) {
+      return myIndexer.isUpToDate(classFile) && classFile.lastModified() >= sourceFile.getTimeStamp();
+    }
+
+    private static boolean isNestedClassFileOf(@NotNull final String classFileName, @NotNull final List<String> topLevelClassNames) {
+      for (String className : topLevelClassNames) {
+        if (classFileName.startsWith(className + "$")) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @NotNull
+    private String[] getOutputDirectoryFiles(@NotNull final File outputDir) {
+      String[] names = myOutputDirectoryFiles.get(outputDir);
+      if (names == null) {
+        names = outputDir.list();
+        if (names == null) {
+          names = ArrayUtil.EMPTY_STRING_ARRAY;
+        }
+        myOutputDirectoryFiles.put(outputDir, names);
+      }
+      return names;
+    }
+
+    @Nullable
+    private List<String> getTopLevelClassNames(@NotNull final VirtualFile file) {
+      return ApplicationManager.getApplication().runReadAction(new Computable<List<String>>() {
+        @Override
+        public List<String> compute() {
+          final PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
+          if (!(psiFile instanceof PsiJavaFile)) {
+            return null;
+          }
+          final List<String> names = new ArrayList<String>();
+          for (PsiClass psiClass : ((PsiJavaFile)psiFile).getClasses()) {
+            final String name = psiClass.getName();
+            if (name == null) {
+              return null;
+            }
+            names.add(name);
+          }
+          return names;
+        }
+      });
+    }
+
+    @Nullable
+    private File getOutputDirectory(@NotNull final VirtualFile file) {
+      final Module module = myFileIndex.getModuleForFile(file);
+      final VirtualFile dir = file.getParent();
+      if (module == null || dir == null || !myFileIndex.isInSourceContent(file)) {
+        return null;
+      }
+      final CompilerModuleExtension extension = CompilerModuleExtension.getInstance(module);
+      if (extension == null) {
+        return null;
+      }
+      final String outputUrl = myFileIndex.isInTestSourceContent(file)
+                               ? extension.getCompilerOutputUrlForTests()
+                               : extension.getCompilerOutputUrl();
+      final String packageName = myFileIndex.getPackageNameByDirectory(dir);
+      if (outputUrl == null || packageName == null) {
+        return null;
+      }
+      return new File(VfsUtilCore.urlToPath(outputUrl), packageName.replace('.', '/'));
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.intellij.compilerOutputIndex.impl.references;
+
+import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputBaseIndex;
+import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.StorageException;
+import com.intellij.util.indexing.ValueContainer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.asm4.*;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Maps "owner#name#parametersCount" (methods) and "owner#name" (fields) keys of the members referenced from a class file to the name
+ * of the source file the class was compiled from. Owner is the JVM name of the class the member is referenced through.
+ */
+public class MemberReferencesIndex extends CompilerOutputBaseIndex<String, String> {
+  private static final String NO_SOURCE = "";
+
+  public static MemberReferencesIndex getInstance(final Project project) {
+    return CompilerOutputIndexer.getInstance(project).getIndex(MemberReferencesIndex.class);
+  }
+
+  public MemberReferencesIndex() {
+    super(new EnumeratorStringDescriptor(), new EnumeratorStringDescriptor());
+  }
+
+  public static String methodKey(@NotNull final String ownerJvmName, @NotNull final String name, final int parametersCount) {
+    return ownerJvmName + "#" + name + "#" + parametersCount;
+  }
+
+  public static String fieldKey(@NotNull final String ownerJvmName, @NotNull final String name) {
+    return ownerJvmName + "#" + name;
+  }
+
+  /**
+   * @return paths of the source files (as they would be located in the compiler output directory) whose classes reference any of the keys
+   */
+  @NotNull
+  public Set<String> getReferencingSourceFiles(@NotNull final Collection<String> keys) {
+    final CompilerOutputIndexer indexer = CompilerOutputIndexer.getInstance(getProject());
+    final Set<String> result = new HashSet<String>();
+    try {
+      for (final String key : keys) {
+        final ValueContainer<String> valueContainer = myIndex.getData(key);
+        valueContainer.forEach(new ValueContainer.ContainerAction<String>() {
+          @Override
+          public boolean perform(final int id, final String sourceFileName) {
+            if (NO_SOURCE.equals(sourceFileName)) {
+              return true;
+            }
+            final String classFilePath = indexer.getIndexedFilePath(id);
+            if (classFilePath != null) {
+              result.add(new File(new File(classFilePath).getParentFile(), sourceFileName).getPath());
+            }
+            return true;
+          }
+        });
+      }
+    }
+    catch (StorageException e) {
+      throw new RuntimeException(e);
+    }
+    return result;
+  }
+
+  @Override
+  protected ID<String, String> getIndexId() {
+    return generateIndexId(MemberReferencesIndex.class);
+  }
+
+  @Override
+  protected int getVersion() {
+    return 0;
+  }
+
+  @Override
+  protected DataIndexer<String, String, ClassReader> getIndexer() {
+    return new DataIndexer<String, String, ClassReader>() {
+      @NotNull
+      @Override
+      public Map<String, String> map(final ClassReader inputData) {
+        final Set<String> keys = new HashSet<String>();
+        final String[] sourceFileName = {NO_SOURCE};
+        final MethodVisitor methodVisitor = new MethodVisitor(Opcodes.ASM4) {
+          @Override
+          public void visitMethodInsn(final int opcode, final String owner, final String name, final String desc) {
+            addMethodKey(owner, name, desc);
+          }
+
+          @Override
+          public void visitFieldInsn(final int opcode, final String owner, final String name, final String desc) {
+            keys.add(fieldKey(toJvmName(owner), name));
+          }
+
+          @Override
+          public void visitInvokeDynamicInsn(final String name, final String desc, final Handle bsm, final Object... bsmArgs) {
+            for (final Object arg : bsmArgs) {
+              if (arg instanceof Handle) {
+                final Handle handle = (Handle)arg;
+                if (handle.getTag() <= Opcodes.H_PUTSTATIC) {
+                  keys.add(fieldKey(toJvmName(handle.getOwner()), handle.getName()));
+                }
+                else {
+                  addMethodKey(handle.getOwner(), handle.getName(), handle.getDesc());
+                }
+              }
+            }
+          }
+
+          private void addMethodKey(final String owner, final String name, final String desc) {
+            if (!name.startsWith("<")) {
+              keys.add(methodKey(toJvmName(owner), name, Type.getArgumentTypes(desc).length));
+            }
+          }
+        };
+        inputData.accept(new ClassVisitor(Opcodes.ASM4) {
+          @Override
+          public void visitSource(final String source, final String debug) {
+            if (source != null) {
+              sourceFileName[0] = source;
+            }
+          }
+
+          @Override
+          public MethodVisitor visitMethod(final int access,
+                                           final String name,
+                                           final String desc,
+                                           final String signature,
+                                           final String[] exceptions) {
+            return methodVisitor;
+          }
+        }, ClassReader.SKIP_FRAMES);
+
+        final Map<String, String> map = new HashMap<String, String>(keys.size());
+        for (final String key : keys) {
+          map.put(key, sourceFileName[0]);
+        }
+        return map;
+      }
+    };
+  }
+
+  private static String toJvmName(final String internalName) {
+    return internalName.replace('/', '.');
+  }
+}
@@ -1,12 +1,10 @@
 package com.intellij.compilerOutputIndex.impl.singleton;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
+import com.intellij.compilerOutputIndex.api.descriptor.ObjectIntMapDataExternalizer;
 import com.intellij.compilerOutputIndex.api.fs.AsmUtil;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputBaseIndex;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexUtil;
 import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
-import com.intellij.compilerOutputIndex.impl.GuavaHashMultiSetExternalizer;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import com.intellij.util.indexing.DataIndexer;
@@ -14,6 +12,8 @@ import com.intellij.util.indexing.ID;
 import com.intellij.util.indexing.StorageException;
 import com.intellij.util.indexing.ValueContainer;
 import com.intellij.util.io.EnumeratorStringDescriptor;
+import gnu.trove.TObjectIntHashMap;
+import gnu.trove.TObjectIntProcedure;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.asm4.*;
@@ -23,61 +23,69 @@ import java.util.*;
 /**
  * @author Dmitry Batkovich
  */
-public class ParamsInMethodOccurrencesIndex extends CompilerOutputBaseIndex<String, Multiset<MethodShortSignature>> {
+public class ParamsInMethodOccurrencesIndex extends CompilerOutputBaseIndex<String, TObjectIntHashMap<MethodShortSignature>> {
 
   public static ParamsInMethodOccurrencesIndex getInstance(final Project project) {
     return CompilerOutputIndexer.getInstance(project).getIndex(ParamsInMethodOccurrencesIndex.class);
   }
 
   public ParamsInMethodOccurrencesIndex() {
-    super(new EnumeratorStringDescriptor(), new GuavaHashMultiSetExternalizer<MethodShortSignature>(MethodShortSignature.createDataExternalizer()));
+    super(new EnumeratorStringDescriptor(), new ObjectIntMapDataExternalizer<MethodShortSignature>(MethodShortSignature.createDataExternalizer()));
   }
 
   @Override
-  protected ID<String, Multiset<MethodShortSignature>> getIndexId() {
+  protected ID<String, TObjectIntHashMap<MethodShortSignature>> getIndexId() {
     return generateIndexId(ParamsInMethodOccurrencesIndex.class);
   }
 
   @Override
   protected int getVersion() {
-    return 0;
+    return 1;
   }
 
   public Pair<List<MethodShortSignatureWithWeight>, Integer> getParameterOccurrences(final String parameterTypeName) {
     try {
-      final Multiset<MethodShortSignature> resultAsMultiset = HashMultiset.create();
-      final ValueContainer<Multiset<MethodShortSignature>> valueContainer = myIndex.getData(parameterTypeName);
-      valueContainer.forEach(new ValueContainer.ContainerAction<Multiset<MethodShortSignature>>() {
+      final TObjectIntHashMap<MethodShortSignature> occurrences = new TObjectIntHashMap<MethodShortSignature>();
+      final ValueContainer<TObjectIntHashMap<MethodShortSignature>> valueContainer = myIndex.getData(parameterTypeName);
+      valueContainer.forEach(new ValueContainer.ContainerAction<TObjectIntHashMap<MethodShortSignature>>() {
         @Override
-        public boolean perform(final int id, final Multiset<MethodShortSignature> localMap) {
-          for (final Multiset.Entry<MethodShortSignature> e : localMap.entrySet()) {
-            resultAsMultiset.add(e.getElement(), e.getCount());
-          }
+        public boolean perform(final int id, final TObjectIntHashMap<MethodShortSignature> localMap) {
+          localMap.forEachEntry(new TObjectIntProcedure<MethodShortSignature>() {
+            @Override
+            public boolean execute(final MethodShortSignature signature, final int count) {
+              ObjectIntMapDataExternalizer.addOccurrences(occurrences, signature, count);
+              return true;
+            }
+          });
           return true;
         }
       });
 
-      final List<MethodShortSignatureWithWeight> result = new ArrayList<MethodShortSignatureWithWeight>(resultAsMultiset.elementSet().size());
-      int sumWeight = 0;
-      for (final Multiset.Entry<MethodShortSignature> e : resultAsMultiset.entrySet()) {
-        sumWeight += e.getCount();
-        result.add(new MethodShortSignatureWithWeight(e.getElement(), e.getCount()));
-      }
+      final List<MethodShortSignatureWithWeight> result = new ArrayList<MethodShortSignatureWithWeight>(occurrences.size());
+      final int[] sumWeight = {0};
+      occurrences.forEachEntry(new TObjectIntProcedure<MethodShortSignature>() {
+        @Override
+        public boolean execute(final MethodShortSignature signature, final int count) {
+          sumWeight[0] += count;
+          result.add(new MethodShortSignatureWithWeight(signature, count));
+          return true;
+        }
+      });
       Collections.sort(result, MethodShortSignatureWithWeight.COMPARATOR);
 
-      return Pair.create(result, sumWeight);
+      return Pair.create(result, sumWeight[0]);
     } catch (StorageException e) {
       throw new RuntimeException(e);
     }
   }
 
   @Override
-  protected DataIndexer<String, Multiset<MethodShortSignature>, ClassReader> getIndexer() {
-    return new DataIndexer<String, Multiset<MethodShortSignature>, ClassReader>() {
+  protected DataIndexer<String, TObjectIntHashMap<MethodShortSignature>, ClassReader> getIndexer() {
+    return new DataIndexer<String, TObjectIntHashMap<MethodShortSignature>, ClassReader>() {
       @NotNull
       @Override
-      public Map<String, Multiset<MethodShortSignature>> map(final ClassReader inputData) {
-        final Map<String, Multiset<MethodShortSignature>> result = new HashMap<String, Multiset<MethodShortSignature>>();
+      public Map<String, TObjectIntHashMap<MethodShortSignature>> map(final ClassReader inputData) {
+        final Map<String, TObjectIntHashMap<MethodShortSignature>> result = new HashMap<String, TObjectIntHashMap<MethodShortSignature>>();
         inputData.accept(new ClassVisitor(Opcodes.ASM4) {
           @Nullable
           @Override
@@ -88,23 +96,12 @@ public class ParamsInMethodOccurrencesIndex extends CompilerOutputBaseIndex<Stri
             final String[] parameters = AsmUtil.getParamsTypes(desc);
             final MethodShortSignature thisMethodShortSignature = new MethodShortSignature(name, desc);
             for (final String parameter : parameters) {
-              Multiset<MethodShortSignature> methods = result.get(parameter);
-              if (methods == null) {
-                methods = HashMultiset.create();
-                result.put(parameter, methods);
-              }
-              methods.add(thisMethodShortSignature);
+              ObjectIntMapDataExternalizer.addOccurrence(result, parameter, thisMethodShortSignature);
             }
             return new MethodVisitor(Opcodes.ASM4) {
               @Override
               public void visitLocalVariable(final String s, final String desc, final String signature, final Label label, final Label label2, final int i) {
-                final String varType = AsmUtil.getQualifiedClassName(desc);
-                Multiset<MethodShortSignature> methods = result.get(varType);
-                if (methods == null) {
-                  methods = HashMultiset.create();
-                  result.put(varType, methods);
-                }
-                methods.add(thisMethodShortSignature);
+                ObjectIntMapDataExternalizer.addOccurrence(result, AsmUtil.getQualifiedClassName(desc), thisMethodShortSignature);
               }
             };
           }
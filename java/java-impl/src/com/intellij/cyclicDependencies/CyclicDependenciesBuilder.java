@@ -25,7 +25,10 @@ import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.packageDependencies.DependenciesBuilder;
 import com.intellij.packageDependencies.ForwardDependenciesBuilder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
+import com.intellij.util.Chunk;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.graph.CachingSemiGraph;
 import com.intellij.util.graph.Graph;
 import com.intellij.util.graph.GraphAlgorithms;
@@ -87,6 +90,15 @@ public class CyclicDependenciesBuilder{
 
   public void analyze() {
     final ProjectFileIndex projectFileIndex = ProjectRootManager.getInstance(getProject()).getFileIndex();
+    final List<VirtualFile> javaFiles = new ArrayList<VirtualFile>();
+    getScope().accept(new PsiRecursiveElementVisitor() {
+      @Override public void visitFile(PsiFile file) {
+        if (file instanceof PsiJavaFile) {
+          ContainerUtil.addIfNotNull(javaFiles, file.getVirtualFile());
+        }
+      }
+    });
+    ForwardDependenciesBuilder.prepareDependencies(getProject(), javaFiles);
     getScope().accept(new PsiRecursiveElementVisitor() {
       @Override public void visitFile(PsiFile file) {
         if (file instanceof PsiJavaFile) {
@@ -210,6 +222,15 @@ public class CyclicDependenciesBuilder{
     if (myGraph == null){
       myGraph = buildGraph();
     }
+    // only packages from the same strongly connected component can form a cycle, so don't look for cycles through the others
+    final Set<PsiPackage> packagesInCycles = new HashSet<PsiPackage>();
+    final Graph<Chunk<PsiPackage>> sccGraph = GraphAlgorithms.getInstance().computeSCCGraph(myGraph);
+    for (Chunk<PsiPackage> chunk : sccGraph.getNodes()) {
+      if (chunk.getNodes().size() > 1) {
+        packagesInCycles.addAll(chunk.getNodes());
+      }
+    }
+
     final HashMap<PsiPackage, Set<List<PsiPackage>>> result = new HashMap<PsiPackage, Set<List<PsiPackage>>>();
     for (Iterator<PsiPackage> iterator = packages.iterator(); iterator.hasNext();) {
       PsiPackage psiPackage = iterator.next();
@@ -218,7 +239,9 @@ public class CyclicDependenciesBuilder{
           paths2Pack = new HashSet<List<PsiPackage>>();
           result.put(psiPackage, paths2Pack);
         }
-        paths2Pack.addAll(GraphAlgorithms.getInstance().findCycles(myGraph, psiPackage));
+        if (packagesInCycles.contains(psiPackage)) {
+          paths2Pack.addAll(GraphAlgorithms.getInstance().findCycles(myGraph, psiPackage));
+        }
     }
     return result;
   }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.refactoring.util.duplicates;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.JarFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Maps fingerprints of code fragments to their ranges in Java files, so that the clones of a fragment anywhere in the project
+ * are found by an index lookup. A fragment is a run of consecutive statements of a code block. Its fingerprint is a hash of the
+ * syntax trees of the statements in which identifiers are anonymized and literal values are ignored, so fragments which differ
+ * only in names and constants are clones.
+ * <p/>
+ * Fingerprints may collide, so an occurrence is a candidate clone rather than a proven one.
+ */
+public class DuplicateFragmentsIndex extends FileBasedIndexExtension<Integer, TIntArrayList> {
+  public static final ID<Integer, TIntArrayList> NAME = ID.create("java.duplicate.fragments");
+  private static final int STATEMENTS_IN_FRAGMENT = 3;
+  private static final int MIN_TOKENS_IN_FRAGMENT = 30;
+
+  public static class Fragment {
+    private final int myFingerprint;
+    private final PsiStatement[] myStatements;
+
+    private Fragment(int fingerprint, @NotNull PsiStatement[] statements) {
+      myFingerprint = fingerprint;
+      myStatements = statements;
+    }
+
+    public int getFingerprint() {
+      return myFingerprint;
+    }
+
+    @NotNull
+    public PsiStatement[] getStatements() {
+      return myStatements;
+    }
+
+    @NotNull
+    public TextRange getTextRange() {
+      return new TextRange(myStatements[0].getTextRange().getStartOffset(),
+                           myStatements[myStatements.length - 1].getTextRange().getEndOffset());
+    }
+  }
+
+  /**
+   * @return fragments of the file in the order of their start offsets, overlapping fragments of the same block included
+   */
+  @NotNull
+  public static List<Fragment> computeFragments(@NotNull PsiFile file) {
+    final List<Fragment> fragments = new ArrayList<Fragment>();
+    file.accept(new JavaRecursiveElementWalkingVisitor() {
+      @Override
+      public void visitCodeBlock(PsiCodeBlock block) {
+        addFragments(block.getStatements(), fragments);
+        super.visitCodeBlock(block);
+      }
+    });
+    Collections.sort(fragments, new Comparator<Fragment>() {
+      @Override
+      public int compare(Fragment f1, Fragment f2) {
+        return f1.getTextRange().getStartOffset() - f2.getTextRange().getStartOffset();
+      }
+    });
+    return fragments;
+  }
+
+  private static void addFragments(@NotNull PsiStatement[] statements, @NotNull List<Fragment> fragments) {
+    if (statements.length == 0) return;
+    final int[] hashes = new int[statements.length];
+    final int[] tokens = new int[statements.length];
+    for (int i = 0; i < statements.length; i++) {
+      final int[] count = {0};
+      hashes[i] = hashTree(statements[i].getNode(), count);
+      tokens[i] = count[0];
+    }
+    final int size = Math.min(STATEMENTS_IN_FRAGMENT, statements.length);
+    for (int start = 0; start + size <= statements.length; start++) {
+      int fingerprint = size;
+      int tokenCount = 0;
+      for (int i = start; i < start + size; i++) {
+        fingerprint = fingerprint * 31 + hashes[i];
+        tokenCount += tokens[i];
+      }
+      if (tokenCount >= MIN_TOKENS_IN_FRAGMENT) {
+        final PsiStatement[] fragmentStatements = new PsiStatement[size];
+        System.arraycopy(statements, start, fragmentStatements, 0, size);
+        fragments.add(new Fragment(fingerprint, fragmentStatements));
+      }
+    }
+  }
+
+  private static int hashTree(@NotNull ASTNode node, @NotNull int[] tokenCount) {
+    final IElementType type = node.getElementType();
+    // the debug names of element types are stable between sessions unlike their indices
+    int hash = type.toString().hashCode();
+    final ASTNode firstChild = node.getFirstChildNode();
+    if (firstChild == null) {
+      if (node.getTextLength() > 0) {
+        tokenCount[0]++;
+      }
+      return type == JavaTokenType.IDENTIFIER ? 0 : hash;
+    }
+    for (ASTNode child = firstChild; child != null; child = child.getTreeNext()) {
+      final PsiElement psi = child.getPsi();
+      if (!(psi instanceof PsiWhiteSpace) && !(psi instanceof PsiComment)) {
+        hash = hash * 31 + hashTree(child, tokenCount);
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Processes the occurrences of fragments with the fingerprint in the files of the scope
+   */
+  public static void processOccurrences(int fingerprint,
+                                        @NotNull GlobalSearchScope scope,
+                                        @NotNull final OccurrenceProcessor processor) {
+    FileBasedIndex.getInstance().processValues(NAME, fingerprint, null, new FileBasedIndex.ValueProcessor<TIntArrayList>() {
+      @Override
+      public boolean process(VirtualFile file, TIntArrayList ranges) {
+        ProgressManager.checkCanceled();
+        for (int i = 0; i + 1 < ranges.size(); i += 2) {
+          if (!processor.process(file, new TextRange(ranges.get(i), ranges.get(i + 1)))) {
+            return false;
+          }
+        }
+        return true;
+      }
+    }, scope);
+  }
+
+  public interface OccurrenceProcessor {
+    boolean process(@NotNull VirtualFile file, @NotNull TextRange range);
+  }
+
+  @NotNull
+  @Override
+  public ID<Integer, TIntArrayList> getName() {
+    return NAME;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<Integer, TIntArrayList, FileContent> getIndexer() {
+    return new DataIndexer<Integer, TIntArrayList, FileContent>() {
+      @NotNull
+      @Override
+      public Map<Integer, TIntArrayList> map(FileContent inputData) {
+        final PsiFile file = inputData.getPsiFile();
+        if (!(file instanceof PsiJavaFile)) {
+          return Collections.emptyMap();
+        }
+        final Map<Integer, TIntArrayList> result = new HashMap<Integer, TIntArrayList>();
+        for (Fragment fragment : computeFragments(file)) {
+          TIntArrayList ranges = result.get(fragment.getFingerprint());
+          if (ranges == null) {
+            ranges = new TIntArrayList();
+            result.put(fragment.getFingerprint(), ranges);
+          }
+          final TextRange range = fragment.getTextRange();
+          ranges.add(range.getStartOffset());
+          ranges.add(range.getEndOffset());
+        }
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public KeyDescriptor<Integer> getKeyDescriptor() {
+    return EnumeratorIntegerDescriptor.INSTANCE;
+  }
+
+  @Override
+  public DataExternalizer<TIntArrayList> getValueExternalizer() {
+    return new DataExternalizer<TIntArrayList>() {
+      @Override
+      public void save(DataOutput out, TIntArrayList value) throws IOException {
+        DataInputOutputUtil.writeINT(out, value.size());
+        for (int i = 0; i < value.size(); i++) {
+          DataInputOutputUtil.writeINT(out, value.get(i));
+        }
+      }
+
+      @Override
+      public TIntArrayList read(DataInput in) throws IOException {
+        final int size = DataInputOutputUtil.readINT(in);
+        final TIntArrayList value = new TIntArrayList(size);
+        for (int i = 0; i < size; i++) {
+          value.add(DataInputOutputUtil.readINT(in));
+        }
+        return value;
+      }
+    };
+  }
+
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE) {
+      @Override
+      public boolean acceptInput(VirtualFile file) {
+        // library sources aren't searched for clones
+        return !(file.getFileSystem() instanceof JarFileSystem);
+      }
+    };
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return 0;
+  }
+}
@@ -34,18 +34,23 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.WindowManager;
 import com.intellij.psi.*;
+import com.intellij.psi.impl.cache.CacheManager;
 import com.intellij.psi.impl.source.PostprocessReformattingAspect;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.UsageSearchContext;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.refactoring.HelpID;
 import com.intellij.refactoring.RefactoringActionHandler;
 import com.intellij.refactoring.RefactoringBundle;
 import com.intellij.refactoring.extractMethod.InputVariables;
 import com.intellij.refactoring.util.CommonRefactoringUtil;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -147,6 +152,19 @@ public class MethodDuplicatesHandler implements RefactoringActionHandler {
       }
     }
 
+    final Map<PsiMember, Set<VirtualFile>> memberToCandidateFiles = new HashMap<PsiMember, Set<VirtualFile>>();
+    for (final PsiMember member : members) {
+      final Set<VirtualFile> candidateFiles = ApplicationManager.getApplication().runReadAction(new Computable<Set<VirtualFile>>() {
+        @Override
+        public Set<VirtualFile> compute() {
+          return findFilesCallingSameMethods(project, member, scope);
+        }
+      });
+      if (candidateFiles != null) {
+        memberToCandidateFiles.put(member, candidateFiles);
+      }
+    }
+
     scope.accept(new PsiRecursiveElementVisitor() {
       private int myFileCount = 0;
       @Override public void visitFile(final PsiFile file) {
@@ -165,6 +183,8 @@ public class MethodDuplicatesHandler implements RefactoringActionHandler {
           if (dependencies == null || !dependencies.contains(targetModule)) continue;
 
           final PsiMember method = entry.getKey();
+          final Set<VirtualFile> candidateFiles = memberToCandidateFiles.get(method);
+          if (candidateFiles != null && !candidateFiles.contains(file.getVirtualFile())) continue;
           final List<Match> matchList = hasDuplicates(file, method);
           for (Iterator<Match> iterator = matchList.iterator(); iterator.hasNext(); ) {
             Match match = iterator.next();
@@ -209,6 +229,59 @@ public class MethodDuplicatesHandler implements RefactoringActionHandler {
     }
   }
 
+  /**
+   * Duplicates of a member have to call the same methods it calls, so only the files of the scope which contain names of all
+   * these methods (according to the word index) need to be matched against it.
+   *
+   * @return files which may contain duplicates of the member, or null if any file of the scope may contain them
+   */
+  @Nullable
+  private static Set<VirtualFile> findFilesCallingSameMethods(final Project project, final PsiMember member, final AnalysisScope scope) {
+    final PsiElement body = member instanceof PsiMethod ? ((PsiMethod)member).getBody() : ((PsiField)member).getInitializer();
+    if (body == null) return null;
+
+    final Set<String> calledMethodNames = new HashSet<String>();
+    body.accept(new JavaRecursiveElementWalkingVisitor() {
+      @Override
+      public void visitMethodCallExpression(PsiMethodCallExpression expression) {
+        super.visitMethodCallExpression(expression);
+        final PsiReferenceExpression methodExpression = expression.getMethodExpression();
+        if (!(methodExpression.getReferenceNameElement() instanceof PsiIdentifier)) return;
+        final PsiMethod calledMethod = expression.resolveMethod();
+        // calls of unresolved methods and of methods declared in the pattern itself may match calls with other names
+        if (calledMethod != null && !PsiTreeUtil.isAncestor(member, calledMethod, true)) {
+          calledMethodNames.add(methodExpression.getReferenceName());
+        }
+      }
+    });
+    // a local scope has few files, they are matched without prefiltering
+    if (calledMethodNames.isEmpty() || !(scope.toSearchScope() instanceof GlobalSearchScope)) return null;
+
+    final CacheManager cacheManager = CacheManager.SERVICE.getInstance(project);
+    GlobalSearchScope searchScope = (GlobalSearchScope)scope.toSearchScope();
+    Set<VirtualFile> result = null;
+    for (String name : calledMethodNames) {
+      ProgressManager.checkCanceled();
+      final Set<VirtualFile> files = new HashSet<VirtualFile>();
+      cacheManager.processFilesWithWord(new Processor<PsiFile>() {
+        @Override
+        public boolean process(PsiFile file) {
+          ProgressManager.checkCanceled();
+          final VirtualFile virtualFile = file.getVirtualFile();
+          if (virtualFile != null) {
+            files.add(virtualFile);
+          }
+          return true;
+        }
+      }, name, UsageSearchContext.IN_CODE, searchScope, true);
+      result = files;
+      if (result.isEmpty()) break;
+      // the files without the other names aren't interesting, don't create PSI for them
+      searchScope = GlobalSearchScope.filesScope(project, files);
+    }
+    return result;
+  }
+
   private static void replaceDuplicate(final Project project, final Map<PsiMember, List<Match>> duplicates, final Set<PsiMember> methods) {
     final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
     if (progressIndicator != null && progressIndicator.isCanceled()) return;
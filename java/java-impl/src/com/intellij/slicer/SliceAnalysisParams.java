@@ -24,6 +24,7 @@ public class SliceAnalysisParams {
   public boolean dataFlowToThis = true; // to/from this
   public boolean showInstanceDereferences = true; // show method calls or field access on the variable being analysed
   public AnalysisScope scope;
+  final SliceSearchCache searchCache = new SliceSearchCache();
 
   public SliceAnalysisParams() {
   }
@@ -17,8 +17,6 @@ package com.intellij.slicer;
 
 import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
-import com.intellij.psi.search.searches.MethodReferencesSearch;
-import com.intellij.psi.search.searches.OverridingMethodsSearch;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.psi.util.MethodSignatureUtil;
 import com.intellij.psi.util.PsiTreeUtil;
@@ -67,7 +65,7 @@ public class SliceForwardUtil {
             }
           };
           if (!myProcessor.process(method)) return false;
-          return OverridingMethodsSearch.search(method, parent.getScope().toSearchScope(), true).forEach(myProcessor);
+          return parent.params.searchCache.processOverridingMethods(method, parent.getScope(), myProcessor);
         }
       }
 
@@ -117,7 +115,7 @@ public class SliceForwardUtil {
         final THashSet<PsiMethod> implementors = new THashSet<PsiMethod>(superMethods);
         for (PsiMethod superMethod : superMethods) {
           SliceManager.getInstance(method.getProject()).checkCanceled();
-          if (!OverridingMethodsSearch.search(superMethod, parent.getScope().toSearchScope(), true).forEach(new Processor<PsiMethod>() {
+          if (!parent.params.searchCache.processOverridingMethods(superMethod, parent.getScope(), new Processor<PsiMethod>() {
             @Override
             public boolean process(PsiMethod sub) {
               SliceManager.getInstance(method.getProject()).checkCanceled();
@@ -158,7 +156,7 @@ public class SliceForwardUtil {
       superMethods.add(method);
       final Set<PsiReference> processed = new THashSet<PsiReference>(); //usages of super method and overridden method can overlap
       for (final PsiMethod containingMethod : superMethods) {
-        if (!MethodReferencesSearch.search(containingMethod, parent.getScope().toSearchScope(), true).forEach(new Processor<PsiReference>() {
+        if (!parent.params.searchCache.processMethodReferences(containingMethod, parent.getScope(), new Processor<PsiReference>() {
             @Override
             public boolean process(final PsiReference reference) {
               SliceManager.getInstance(from.getProject()).checkCanceled();
@@ -18,6 +18,7 @@ package com.intellij.slicer;
 import com.intellij.codeInsight.NullableNotNullManager;
 import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.codeInspection.dataFlow.DfaUtil;
+import com.intellij.codeInspection.dataFlow.MethodNullityInference;
 import com.intellij.codeInspection.dataFlow.Nullness;
 import com.intellij.ide.util.treeView.AbstractTreeNode;
 import com.intellij.ide.util.treeView.AbstractTreeStructure;
@@ -228,6 +229,8 @@ public class SliceNullnessAnalyzer {
       PsiMethod method = ((PsiMethodCallExpression)value).resolveMethod();
       if (method != null && NullableNotNullManager.isNotNull(method)) return Nullness.NOT_NULL;
       if (method != null && NullableNotNullManager.isNullable(method)) return Nullness.NULLABLE;
+      Nullness inferred = MethodNullityInference.inferNullity(method);
+      if (inferred != Nullness.UNKNOWN) return inferred;
     }
     if (value instanceof PsiPolyadicExpression && ((PsiPolyadicExpression)value).getOperationTokenType() == JavaTokenType.PLUS) {
       return Nullness.NOT_NULL; // "xxx" + var
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.slicer;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.searches.MethodReferencesSearch;
+import com.intellij.psi.search.searches.OverridingMethodsSearch;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.util.Processor;
+import com.intellij.util.Query;
+import com.intellij.util.containers.ConcurrentSoftValueHashMap;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the results of the searches made while expanding slice nodes. The same fields and methods are usually reached
+ * through many paths of the slice tree (e.g. all callers of a setter), and the searches take most of the expansion time.
+ * The results are keyed by the element and the analysis scope instance of the slice (the search scopes converted from it aren't
+ * comparable), held softly and dropped on any PSI modification. A search is streamed to the processor when it's made for the first
+ * time, and its results are remembered only if the processor hasn't stopped it.
+ */
+class SliceSearchCache {
+  private final Map<Pair<PsiField, AnalysisScope>, Collection<PsiReference>> myFieldReferences =
+    new ConcurrentSoftValueHashMap<Pair<PsiField, AnalysisScope>, Collection<PsiReference>>();
+  private final Map<Pair<PsiMethod, AnalysisScope>, Collection<PsiReference>> myMethodReferences =
+    new ConcurrentSoftValueHashMap<Pair<PsiMethod, AnalysisScope>, Collection<PsiReference>>();
+  private final Map<Pair<PsiMethod, AnalysisScope>, Collection<PsiMethod>> myOverridingMethods =
+    new ConcurrentSoftValueHashMap<Pair<PsiMethod, AnalysisScope>, Collection<PsiMethod>>();
+  private long myModificationCount = -1;
+
+  boolean processFieldReferences(@NotNull PsiField field, @NotNull AnalysisScope scope, @NotNull Processor<PsiReference> processor) {
+    checkUpToDate(field);
+    return process(myFieldReferences, Pair.create(field, scope), ReferencesSearch.search(field, scope.toSearchScope()), processor);
+  }
+
+  boolean processMethodReferences(@NotNull PsiMethod method, @NotNull AnalysisScope scope, @NotNull Processor<PsiReference> processor) {
+    checkUpToDate(method);
+    return process(myMethodReferences, Pair.create(method, scope), MethodReferencesSearch.search(method, scope.toSearchScope(), true),
+                   processor);
+  }
+
+  boolean processOverridingMethods(@NotNull PsiMethod method, @NotNull AnalysisScope scope, @NotNull Processor<PsiMethod> processor) {
+    checkUpToDate(method);
+    return process(myOverridingMethods, Pair.create(method, scope), OverridingMethodsSearch.search(method, scope.toSearchScope(), true),
+                   processor);
+  }
+
+  private static <K, T> boolean process(@NotNull Map<K, Collection<T>> cache,
+                                        @NotNull K key,
+                                        @NotNull Query<T> query,
+                                        @NotNull final Processor<T> processor) {
+    Collection<T> cached = cache.get(key);
+    if (cached != null) {
+      return ContainerUtil.process(cached, processor);
+    }
+    final List<T> found = Collections.synchronizedList(new ArrayList<T>());
+    boolean completed = query.forEach(new Processor<T>() {
+      @Override
+      public boolean process(T t) {
+        found.add(t);
+        return processor.process(t);
+      }
+    });
+    if (completed) {
+      cache.put(key, Collections.unmodifiableCollection(new ArrayList<T>(found)));
+    }
+    return completed;
+  }
+
+  private synchronized void checkUpToDate(@NotNull PsiElement element) {
+    long modificationCount = element.getManager().getModificationTracker().getModificationCount();
+    if (modificationCount != myModificationCount) {
+      myFieldReferences.clear();
+      myMethodReferences.clear();
+      myOverridingMethods.clear();
+      myModificationCount = modificationCount;
+    }
+  }
+}
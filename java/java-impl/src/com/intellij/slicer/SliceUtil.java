@@ -22,15 +22,12 @@ import com.intellij.psi.*;
 import com.intellij.psi.impl.PsiSubstitutorImpl;
 import com.intellij.psi.impl.source.DummyHolder;
 import com.intellij.psi.impl.source.resolve.DefaultParameterTypeInferencePolicy;
-import com.intellij.psi.search.SearchScope;
-import com.intellij.psi.search.searches.MethodReferencesSearch;
-import com.intellij.psi.search.searches.OverridingMethodsSearch;
-import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.util.MethodSignatureUtil;
 import com.intellij.psi.util.PsiUtil;
 import com.intellij.psi.util.TypeConversionUtil;
 import com.intellij.util.ArrayUtilRt;
+import com.intellij.util.CommonProcessors;
 import com.intellij.util.Processor;
 import gnu.trove.THashMap;
 import gnu.trove.THashSet;
@@ -154,7 +151,8 @@ public class SliceUtil {
 
     final PsiType parentType = parentSubstitutor.substitute(methodCallExpr.getType());
     final PsiSubstitutor substitutor = resolved.getSubstitutor().putAll(parentSubstitutor);
-    Collection<PsiMethod> overrides = new THashSet<PsiMethod>(OverridingMethodsSearch.search(methodCalled, parent.getScope().toSearchScope(), true).findAll());
+    Collection<PsiMethod> overrides = new THashSet<PsiMethod>();
+    parent.params.searchCache.processOverridingMethods(methodCalled, parent.getScope(), new CommonProcessors.CollectProcessor<PsiMethod>(overrides));
     overrides.add(methodCalled);
 
     final boolean[] result = {true};
@@ -203,8 +201,7 @@ public class SliceUtil {
         if (!handToProcessor(initializer, processor, parent, parentSubstitutor)) return false;
       }
     }
-    SearchScope searchScope = parent.getScope().toSearchScope();
-    return ReferencesSearch.search(field, searchScope).forEach(new Processor<PsiReference>() {
+    return parent.params.searchCache.processFieldReferences(field, parent.getScope(), new Processor<PsiReference>() {
       @Override
       public boolean process(final PsiReference reference) {
         SliceManager.getInstance(field.getProject()).checkCanceled();
@@ -263,7 +260,7 @@ public class SliceUtil {
 
     final Set<PsiReference> processed = new THashSet<PsiReference>(); //usages of super method and overridden method can overlap
     for (final PsiMethod superMethod : superMethods) {
-      if (!MethodReferencesSearch.search(superMethod, parent.getScope().toSearchScope(), true).forEach(new Processor<PsiReference>() {
+      if (!parent.params.searchCache.processMethodReferences(superMethod, parent.getScope(), new Processor<PsiReference>() {
         @Override
         public boolean process(final PsiReference reference) {
           SliceManager.getInstance(parameter.getProject()).checkCanceled();
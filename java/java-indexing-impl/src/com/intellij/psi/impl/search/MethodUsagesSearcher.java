@@ -5,6 +5,7 @@ import com.intellij.openapi.application.QueryExecutorBase;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
+import com.intellij.psi.search.CodeReferencesScopeOptimizer;
 import com.intellij.psi.search.SearchRequestCollector;
 import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.search.UsageSearchContext;
@@ -83,8 +84,8 @@ public class MethodUsagesSearcher extends QueryExecutorBase<PsiReference, Method
         SearchScope restrictedByAccessScope = searchScope.intersectWith(accessScope);
 
         short searchContext = UsageSearchContext.IN_CODE | UsageSearchContext.IN_COMMENTS | UsageSearchContext.IN_FOREIGN_LANGUAGES;
-        collector.searchWord(methodName[0], restrictedByAccessScope, searchContext, true,
-                             getTextOccurrenceProcessor(methods, aClass, strictSignatureSearch));
+        CodeReferencesScopeOptimizer.searchWord(collector, methodName[0], restrictedByAccessScope, searchContext, true,
+                                                getTextOccurrenceProcessor(methods, aClass, strictSignatureSearch), methods);
 
         SimpleAccessorReferenceSearcher.addPropertyAccessUsages(method, restrictedByAccessScope, collector);
       }
@@ -440,7 +440,7 @@ public class TypeConversionUtil {
 
     int rank = TYPE_TO_RANK_MAP.get(type);
     if (rank != 0) return rank;
-    if (type.equalsToText("java.lang.String")) return STRING_RANK;
+    if (isClassType(type, CommonClassNames.JAVA_LANG_STRING)) return STRING_RANK;
     return Integer.MAX_VALUE;
   }
 
@@ -492,12 +492,12 @@ public class TypeConversionUtil {
       }
     }
     else if (tokenType == JavaTokenType.PLUS) {
-      if (ltype.equalsToText("java.lang.String")) {
+      if (isClassType(ltype, CommonClassNames.JAVA_LANG_STRING)) {
         isApplicable = !isVoidType(rtype);
         resultTypeRank = STRING_RANK;
         break Label;
       }
-      else if (rtype.equalsToText("java.lang.String")) {
+      else if (isClassType(rtype, CommonClassNames.JAVA_LANG_STRING)) {
         isApplicable = !isVoidType(ltype);
         resultTypeRank = STRING_RANK;
         break Label;
@@ -539,7 +539,7 @@ public class TypeConversionUtil {
     }
     if (isApplicable && strict) {
       if (resultTypeRank > MAX_NUMERIC_RANK) {
-        isApplicable = ltypeRank == resultTypeRank || ltype.equalsToText(CommonClassNames.JAVA_LANG_OBJECT);
+        isApplicable = ltypeRank == resultTypeRank || isClassType(ltype, CommonClassNames.JAVA_LANG_OBJECT);
       }
       else {
         isApplicable = ltypeRank <= MAX_NUMERIC_RANK;
@@ -731,7 +731,7 @@ public class TypeConversionUtil {
           return "java.io.Serializable".equals(qualifiedName) || "java.lang.Cloneable".equals(qualifiedName);
         }
         else {
-          return left.equalsToText(CommonClassNames.JAVA_LANG_OBJECT);
+          return CommonClassNames.JAVA_LANG_OBJECT.equals(lClass.getQualifiedName());
         }
       }
       PsiType lCompType = ((PsiArrayType)left).getComponentType();
@@ -925,9 +925,9 @@ public class TypeConversionUtil {
       final PsiWildcardType leftWildcard = (PsiWildcardType)typeLeft;
       final PsiType leftBound = leftWildcard.getBound();
       if (leftBound == null) return true;
-      if (leftBound.equalsToText(CommonClassNames.JAVA_LANG_OBJECT)) {
+      if (isClassType(leftBound, CommonClassNames.JAVA_LANG_OBJECT)) {
         if (!leftWildcard.isSuper()) return true;
-        if (typeRight.equalsToText(CommonClassNames.JAVA_LANG_OBJECT)) return true;
+        if (isClassType(typeRight, CommonClassNames.JAVA_LANG_OBJECT)) return true;
       }
 
       if (typeRight instanceof PsiWildcardType) {
@@ -1193,6 +1193,22 @@ public class TypeConversionUtil {
     return INTEGER_NUMBER_TYPES.contains(typeName);
   }
 
+  /**
+   * Same as {@code type.equalsToText(qualifiedName)}, but rejects class types with another short name without building
+   * the type's text or parsing the qualified name.
+   */
+  private static boolean isClassType(@NotNull PsiType type, @NotNull String qualifiedName) {
+    if (type instanceof PsiClassType) {
+      final String className = ((PsiClassType)type).getClassName();
+      if (className == null ||
+          !qualifiedName.endsWith(className) ||
+          qualifiedName.length() > className.length() && qualifiedName.charAt(qualifiedName.length() - className.length() - 1) != '.') {
+        return false;
+      }
+    }
+    return type.equalsToText(qualifiedName);
+  }
+
   public static boolean isPrimitive(String typeName) {
     return PRIMITIVE_TYPES.contains(typeName);
   }
@@ -1204,8 +1220,8 @@ public class TypeConversionUtil {
   public static boolean isAssignableFromPrimitiveWrapper(final PsiType type) {
     if (type == null) return false;
     return isPrimitiveWrapper(type) ||
-           type.equalsToText(CommonClassNames.JAVA_LANG_OBJECT) ||
-           type.equalsToText(CommonClassNames.JAVA_LANG_NUMBER);
+           isClassType(type, CommonClassNames.JAVA_LANG_OBJECT) ||
+           isClassType(type, CommonClassNames.JAVA_LANG_NUMBER);
   }
 
   @Contract("null -> false")
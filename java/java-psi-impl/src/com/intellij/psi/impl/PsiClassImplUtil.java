@@ -20,6 +20,7 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.openapi.roots.FileIndexFacade;
 import com.intellij.openapi.util.*;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.pom.java.LanguageLevel;
 import com.intellij.psi.*;
@@ -61,6 +62,7 @@ import java.util.*;
 public class PsiClassImplUtil {
   private static final Logger LOG = Logger.getInstance("#com.intellij.psi.impl.PsiClassImplUtil");
   private static final Key<ParameterizedCachedValue<MembersMap, PsiClass>> MAP_IN_CLASS_KEY = Key.create("MAP_KEY");
+  public static final String MEMBERS_MAP_ON_DEMAND_REGISTRY_KEY = "java.resolve.members.map.on.demand";
 
   private PsiClassImplUtil() {
   }
@@ -440,7 +442,7 @@ public class PsiClassImplUtil {
     isRaw = isRaw || PsiUtil.isRawSubstitutor(aClass, substitutor);
 
     ParameterizedCachedValue<MembersMap, PsiClass> cache = getValues(aClass); //aClass.getUserData(MAP_IN_CLASS_KEY);
-    boolean upToDate = cache.hasUpToDateValue();
+    boolean upToDate = cache.hasUpToDateValue() || isMembersMapCacheable(aClass, place);
     if (/*true || */upToDate) {
       final NameHint nameHint = processor.getHint(NameHint.KEY);
       if (nameHint != null) {
@@ -451,6 +453,22 @@ public class PsiClassImplUtil {
     return processDeclarationsInClassNotCached(aClass, processor, state, visited, last, place, isRaw, languageLevel);
   }
 
+  /**
+   * The members map is built once per out-of-code-block modification and then shared by all references resolved against the class,
+   * instead of walking the supers for each of them. It isn't built for classes declared inside code blocks (their members change without
+   * out-of-code-block modifications), non-physical classes (the map wouldn't be stored) and for references in extends/implements/throws
+   * lists, since building the map resolves super class references itself.
+   */
+  private static boolean isMembersMapCacheable(@NotNull PsiClass aClass, @NotNull PsiElement place) {
+    if (!Registry.is(MEMBERS_MAP_ON_DEMAND_REGISTRY_KEY, true)) return false;
+    if (aClass instanceof PsiTypeParameter || !aClass.isPhysical()) return false;
+    if (PsiTreeUtil.getParentOfType(place, PsiReferenceList.class, false, PsiCodeBlock.class, PsiMember.class) != null) return false;
+    for (PsiClass psiClass = aClass; psiClass != null; psiClass = psiClass.getContainingClass()) {
+      if (PsiUtil.isLocalOrAnonymousClass(psiClass)) return false;
+    }
+    return true;
+  }
+
   private static boolean processCachedMembersByName(@NotNull PsiClass aClass,
                                                     @NotNull PsiScopeProcessor processor,
                                                     @NotNull ResolveState state,
@@ -285,6 +285,10 @@ public class PsiSubstitutorImpl implements PsiSubstitutor {
         }
         return classType;
       }
+      if (classType.getParameterCount() == 0 && !hasTypeParametersToSubstitute(aClass)) {
+        // nothing to substitute, e.g. String or a raw reference to a non-generic inner class
+        return classType;
+      }
       final Map<PsiTypeParameter, PsiType> hashMap = new HashMap<PsiTypeParameter, PsiType>(2);
       if (!processClass(aClass, resolveResult.getSubstitutor(), hashMap)) {
         return null;
@@ -310,6 +314,15 @@ public class PsiSubstitutorImpl implements PsiSubstitutor {
       return type.accept(this);
     }
 
+    private boolean hasTypeParametersToSubstitute(PsiClass aClass) {
+      while (aClass != null) {
+        if (aClass.hasTypeParameters()) return true;
+        if (aClass.hasModifierProperty(PsiModifier.STATIC)) return false;
+        aClass = aClass.getContainingClass();
+      }
+      return false;
+    }
+
     private boolean processClass(PsiClass resolve, PsiSubstitutor originalSubstitutor, final Map<PsiTypeParameter, PsiType> substMap) {
       final PsiTypeParameter[] params = resolve.getTypeParameters();
       for (final PsiTypeParameter param : params) {
@@ -44,7 +44,7 @@ public class DefaultClsStubBuilderFactory extends ClsStubBuilderFactory {
       final StubBuildingVisitor<VirtualFile> classVisitor =
         new StubBuildingVisitor<VirtualFile>(vFile, VirtualFileInnerClassStrategy.INSTANCE, file, 0);
       try {
-        reader.accept(classVisitor, ClassReader.SKIP_FRAMES);
+        classVisitor.readClass(reader);
       }
       catch (OutOfOrderInnerClassException e) {
         return null;
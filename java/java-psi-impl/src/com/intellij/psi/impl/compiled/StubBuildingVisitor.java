@@ -27,6 +27,7 @@ import com.intellij.psi.stubs.StubElement;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.cls.ClsFormatException;
 import com.intellij.util.io.StringRef;
+import gnu.trove.TIntArrayList;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -63,6 +64,9 @@ public class StubBuildingVisitor<T> extends ClassVisitor {
   private final T mySource;
   private PsiModifierListStub myModList;
   private PsiClassStub myResult;
+  private ClassReader myReader;
+  private TIntArrayList myLocalVariableTables;
+  private int myMethodIndex;
 
   public StubBuildingVisitor(final T classSource, InnerClassSourceStrategy<T> innersStrategy, final StubElement parent, final int access) {
     super(Opcodes.ASM4);
@@ -76,6 +80,83 @@ public class StubBuildingVisitor<T> extends ClassVisitor {
     return myResult;
   }
 
+  /**
+   * Builds the stub skipping method bodies: decoding the bytecode takes most of the time otherwise, while the only things stubs need
+   * from it are parameter names. Those are read directly from the local variable tables located in a separate pass over the class.
+   */
+  public void readClass(@NotNull ClassReader reader) {
+    myReader = reader;
+    myLocalVariableTables = findLocalVariableTables(reader);
+    reader.accept(this, ClassReader.SKIP_CODE);
+  }
+
+  /**
+   * @return offsets of the LocalVariableTable attributes of all methods in the order they are declared in the class file,
+   * or 0 for the methods without such attribute
+   */
+  @NotNull
+  private static TIntArrayList findLocalVariableTables(@NotNull ClassReader reader) {
+    char[] buffer = new char[reader.getMaxStringLength()];
+    int u = reader.header + 8 + 2 * reader.readUnsignedShort(reader.header + 6);
+    int fieldCount = reader.readUnsignedShort(u);
+    u += 2;
+    for (int i = 0; i < fieldCount; i++) {
+      u = skipAttributes(reader, u + 6);
+    }
+
+    int methodCount = reader.readUnsignedShort(u);
+    TIntArrayList result = new TIntArrayList(methodCount);
+    u += 2;
+    for (int i = 0; i < methodCount; i++) {
+      int localVariableTable = 0;
+      int attributeCount = reader.readUnsignedShort(u + 6);
+      u += 8;
+      for (int j = 0; j < attributeCount; j++) {
+        if ("Code".equals(reader.readUTF8(u, buffer))) {
+          localVariableTable = findLocalVariableTable(reader, u + 6, buffer);
+        }
+        u += 6 + reader.readInt(u + 2);
+      }
+      result.add(localVariableTable);
+    }
+    return result;
+  }
+
+  private static int findLocalVariableTable(@NotNull ClassReader reader, int code, char[] buffer) {
+    int u = code + 8 + reader.readInt(code + 4);
+    u += 2 + 8 * reader.readUnsignedShort(u);
+    int result = 0;
+    for (int i = reader.readUnsignedShort(u); i > 0; i--) {
+      if ("LocalVariableTable".equals(reader.readUTF8(u + 2, buffer))) {
+        result = u + 8;
+      }
+      u += 6 + reader.readInt(u + 4);
+    }
+    return result;
+  }
+
+  private static int skipAttributes(@NotNull ClassReader reader, int attributeCount) {
+    int u = attributeCount + 2;
+    for (int i = reader.readUnsignedShort(attributeCount); i > 0; i--) {
+      u += 6 + reader.readInt(u + 2);
+    }
+    return u;
+  }
+
+  private void visitLocalVariables(@NotNull MethodVisitor visitor, int methodIndex) {
+    if (myReader == null || methodIndex >= myLocalVariableTables.size()) return;
+    int table = myLocalVariableTables.get(methodIndex);
+    if (table == 0) return;
+
+    char[] buffer = new char[myReader.getMaxStringLength()];
+    int u = table + 2;
+    for (int i = myReader.readUnsignedShort(table); i > 0; i--) {
+      visitor.visitLocalVariable(myReader.readUTF8(u + 4, buffer), myReader.readUTF8(u + 6, buffer), null, null, null,
+                                 myReader.readUnsignedShort(u + 8));
+      u += 10;
+    }
+  }
+
   @Override
   public void visit(final int version,
                     final int access,
@@ -323,7 +404,7 @@ public class StubBuildingVisitor<T> extends ClassVisitor {
     if (reader == null) return;
 
     final StubBuildingVisitor<T> classVisitor = new StubBuildingVisitor<T>(innerSource, myInnersStrategy, myResult, access);
-    reader.accept(classVisitor, ClassReader.SKIP_FRAMES);
+    classVisitor.readClass(reader);
   }
 
   private static boolean isCorrectName(String name) {
@@ -378,6 +459,8 @@ public class StubBuildingVisitor<T> extends ClassVisitor {
                                    final String desc,
                                    final String signature,
                                    final String[] exceptions) {
+    final int methodIndex = myMethodIndex++;
+
     // JLS 13.1 says: Any constructs introduced by the compiler that do not have a corresponding construct in the source code
     // must be marked as synthetic, except for default constructors and the class initialization method.
     // However Scala compiler erroneously generates ACC_BRIDGE instead of ACC_SYNTHETIC flag for in-trait implementation delegation.
@@ -445,7 +528,10 @@ public class StubBuildingVisitor<T> extends ClassVisitor {
 
     final int localVarIgnoreCount = (access & Opcodes.ACC_STATIC) != 0 ? 0 : isConstructor && myResult.isEnum() ? 3 : 1;
     final int paramIgnoreCount = isConstructor && myResult.isEnum() ? 2 : isNonStaticInnerClassConstructor ? 1 : 0;
-    return new AnnotationParamCollectingVisitor(stub, modList, localVarIgnoreCount, paramIgnoreCount, paramCount, paramStubs);
+    final AnnotationParamCollectingVisitor visitor =
+      new AnnotationParamCollectingVisitor(stub, modList, localVarIgnoreCount, paramIgnoreCount, paramCount, paramStubs);
+    visitLocalVariables(visitor, methodIndex);
+    return visitor;
   }
 
   private static String[] buildThrowsList(String[] exceptions, List<String> throwables, boolean parsedViaGenericSignature) {
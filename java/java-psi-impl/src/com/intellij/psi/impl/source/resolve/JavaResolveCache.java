@@ -22,6 +22,7 @@ package com.intellij.psi.impl.source.resolve;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.NotNullLazyKey;
 import com.intellij.openapi.util.RecursionGuard;
@@ -32,7 +33,9 @@ import com.intellij.psi.impl.source.PsiClassReferenceType;
 import com.intellij.psi.impl.source.PsiImmediateClassType;
 import com.intellij.psi.util.TypeConversionUtil;
 import com.intellij.reference.SoftReference;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.Function;
+import com.intellij.util.containers.ConcurrentHashMap;
 import com.intellij.util.containers.ConcurrentWeakHashMap;
 import com.intellij.util.messages.MessageBus;
 import org.jetbrains.annotations.NonNls;
@@ -40,6 +43,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.ref.Reference;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
@@ -55,6 +59,9 @@ public class JavaResolveCache {
 
   private final ConcurrentMap<PsiExpression, Reference<PsiType>> myCalculatedTypes = new ConcurrentWeakHashMap<PsiExpression, Reference<PsiType>>();
 
+  private final ConcurrentMap<PsiCallExpression, Map<List<?>, PsiSubstitutor>> myCallSubstitutors =
+    new ConcurrentWeakHashMap<PsiCallExpression, Map<List<?>, PsiSubstitutor>>();
+
   private final Map<PsiVariable,Object> myVarToConstValueMapPhysical = new ConcurrentWeakHashMap<PsiVariable, Object>();
   private final Map<PsiVariable,Object> myVarToConstValueMapNonPhysical = new ConcurrentWeakHashMap<PsiVariable, Object>();
 
@@ -77,6 +84,7 @@ public class JavaResolveCache {
 
   private void clearCaches(boolean isPhysical) {
     myCalculatedTypes.clear();
+    myCallSubstitutors.clear();
     if (isPhysical) {
       myVarToConstValueMapPhysical.clear();
     }
@@ -127,6 +135,34 @@ public class JavaResolveCache {
     return reference == null ? null : reference.get();
   }
 
+  /**
+   * Infers type arguments of a call expression nested into another expression, or takes them from the cache.
+   * The results are kept until the next PSI change, so the nested calls aren't inferred again for each enclosing call
+   * whose type is requested by highlighting, completion or resolve.
+   *
+   * @param inferenceContext everything besides the call's PSI the inference depends on, e.g. the target type
+   */
+  @NotNull
+  public PsiSubstitutor getInferredCallSubstitutor(@NotNull PsiCallExpression call,
+                                                   @NotNull List<?> inferenceContext,
+                                                   @NotNull Computable<PsiSubstitutor> inference) {
+    Map<List<?>, PsiSubstitutor> substitutors = myCallSubstitutors.get(call);
+    PsiSubstitutor substitutor = substitutors == null ? null : substitutors.get(inferenceContext);
+    if (substitutor == null) {
+      final RecursionGuard.StackStamp dStackStamp = PsiDiamondType.ourDiamondGuard.markStack();
+      final RecursionGuard.StackStamp gStackStamp = PsiResolveHelper.ourGraphGuard.markStack();
+      substitutor = inference.compute();
+      if (!dStackStamp.mayCacheNow() || !gStackStamp.mayCacheNow()) {
+        return substitutor;
+      }
+      if (substitutors == null) {
+        substitutors = ConcurrencyUtil.cacheOrGet(myCallSubstitutors, call, new ConcurrentHashMap<List<?>, PsiSubstitutor>());
+      }
+      substitutors.put(inferenceContext, substitutor);
+    }
+    return substitutor;
+  }
+
   @Nullable
   public Object computeConstantValueWithCaching(@NotNull PsiVariable variable, @NotNull ConstValueComputer computer, Set<PsiVariable> visitedVars){
     boolean physical = variable.isPhysical();
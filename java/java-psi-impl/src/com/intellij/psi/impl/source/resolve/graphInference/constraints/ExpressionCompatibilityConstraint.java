@@ -15,13 +15,16 @@
  */
 package com.intellij.psi.impl.source.resolve.graphInference.constraints;
 
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
+import com.intellij.psi.impl.source.resolve.JavaResolveCache;
 import com.intellij.psi.impl.source.resolve.graphInference.InferenceSession;
 import com.intellij.psi.impl.source.resolve.graphInference.InferenceVariable;
 import com.intellij.psi.impl.source.resolve.graphInference.PsiPolyExpressionUtil;
 import com.intellij.psi.impl.source.tree.java.PsiMethodCallExpressionImpl;
 import com.intellij.psi.infos.MethodCandidateInfo;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.psi.util.TypeConversionUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -109,7 +112,7 @@ public class ExpressionCompatibilityConstraint extends InputOutputConstraintForm
             callSession.addCapturedVariable(typeParameter);
           }
           callSession.addConstraint(new TypeCompatibilityConstraint(myT, returnType));
-          final PsiSubstitutor callSubstitutor = callSession.infer();
+          final PsiSubstitutor callSubstitutor = inferCallSubstitutor(session, callSession, method, map);
 
           if (myExpression instanceof PsiMethodCallExpression) {
             returnType = PsiMethodCallExpressionImpl.captureReturnType((PsiMethodCallExpression)myExpression, method, returnType, callSubstitutor);
@@ -137,6 +140,41 @@ public class ExpressionCompatibilityConstraint extends InputOutputConstraintForm
     return true;
   }
 
+  private PsiSubstitutor inferCallSubstitutor(InferenceSession session,
+                                              final InferenceSession callSession,
+                                              PsiMethod method,
+                                              Map<PsiElement, Pair<PsiMethod, PsiSubstitutor>> currentCandidates) {
+    final PsiCallExpression callExpression = (PsiCallExpression)myExpression;
+    if (myT == null || !isInferenceIndependentOfCurrentCandidates(callExpression, currentCandidates)) {
+      return callSession.infer();
+    }
+    final List<Object> inferenceContext = new ArrayList<Object>();
+    inferenceContext.add(method);
+    inferenceContext.add(myT);
+    inferenceContext.addAll(session.getTypeParams());
+    return JavaResolveCache.getInstance(callExpression.getProject())
+      .getInferredCallSubstitutor(callExpression, inferenceContext, new Computable<PsiSubstitutor>() {
+        @Override
+        public PsiSubstitutor compute() {
+          return callSession.infer();
+        }
+      });
+  }
+
+  /**
+   * Candidates being checked for the call itself or for the calls in its arguments change the result of the inference,
+   * so it can't be cached then.
+   */
+  private static boolean isInferenceIndependentOfCurrentCandidates(PsiCallExpression callExpression,
+                                                                   Map<PsiElement, Pair<PsiMethod, PsiSubstitutor>> currentCandidates) {
+    if (currentCandidates != null) {
+      for (PsiElement argumentList : currentCandidates.keySet()) {
+        if (PsiTreeUtil.isAncestor(callExpression, argumentList, false)) return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
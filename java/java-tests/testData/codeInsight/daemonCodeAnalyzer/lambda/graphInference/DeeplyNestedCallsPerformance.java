@@ -0,0 +1,13 @@
+import java.util.*;
+public class Main {
+    public static <T> T foo() {return null;}
+
+    public static <B> B id(B b) {return b;}
+
+    public static <B> List<B> list(B b) {return null;}
+
+    static {
+        String s = id(id(id(id(id(id(id(id(id(id(id(id(id(id(id(id(foo()))))))))))))))));
+        List<List<List<List<String>>>> l = list(list(list(list(id(id(id(id(foo()))))))));
+    }
+}
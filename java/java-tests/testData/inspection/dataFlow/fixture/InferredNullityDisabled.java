@@ -0,0 +1,9 @@
+class Some {
+  private String privateNotNull() {
+    return "a";
+  }
+
+  void test() {
+    if (privateNotNull() == null) return;
+  }
+}
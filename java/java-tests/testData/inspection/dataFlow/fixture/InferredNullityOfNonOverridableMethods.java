@@ -0,0 +1,50 @@
+class Some {
+  private String privateNullable(boolean b) {
+    if (b) return <warning descr="'null' is returned by the method which isn't declared as @Nullable">null</warning>;
+    return "a";
+  }
+
+  private String trim(String s) {
+    if (s == null) return <warning descr="'null' is returned by the method which isn't declared as @Nullable">null</warning>;
+    return s.trim();
+  }
+
+  private String privateNotNull(boolean b) {
+    if (b) return "a";
+    return new String();
+  }
+
+  static String staticNotNull(String s) {
+    return "a" + s;
+  }
+
+  final String finalNotNull() {
+    return privateNotNull(true);
+  }
+
+  String overridableNotNull() {
+    return "a";
+  }
+
+  private String unknown(String s) {
+    return s;
+  }
+
+  void test(boolean b, String s, FinalClass f) {
+    privateNullable(b).hashCode();
+    trim("x").length();
+    unknown(s).hashCode();
+
+    if (<warning descr="Condition 'privateNotNull(b) == null' is always 'false'">privateNotNull(b) == null</warning>) return;
+    if (<warning descr="Condition 'staticNotNull(s) == null' is always 'false'">staticNotNull(s) == null</warning>) return;
+    if (<warning descr="Condition 'finalNotNull() == null' is always 'false'">finalNotNull() == null</warning>) return;
+    if (<warning descr="Condition 'f.notNull() == null' is always 'false'">f.notNull() == null</warning>) return;
+    if (overridableNotNull() == null) return;
+  }
+}
+
+final class FinalClass {
+  String notNull() {
+    return this.toString() + "";
+  }
+}
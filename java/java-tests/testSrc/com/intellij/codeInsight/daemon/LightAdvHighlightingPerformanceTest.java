@@ -25,14 +25,17 @@ import com.intellij.openapi.application.ex.PathManagerEx;
 import com.intellij.openapi.extensions.ExtensionPoint;
 import com.intellij.openapi.extensions.Extensions;
 import com.intellij.openapi.util.Disposer;
-import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.*;
 import com.intellij.psi.impl.source.tree.injected.JavaConcatenationInjectorManager;
+import com.intellij.psi.util.TypeConversionUtil;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.impl.CodeInsightTestFixtureImpl;
 import com.intellij.util.ThrowableRunnable;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class LightAdvHighlightingPerformanceTest extends LightDaemonAnalyzerTestCase {
   private final Disposable my = Disposer.newDisposable();
@@ -129,6 +132,42 @@ public class LightAdvHighlightingPerformanceTest extends LightDaemonAnalyzerTest
     }
   }
 
+  public void testAssignabilityChecks() throws Exception {
+    configureByFile(LightAdvHighlightingTest.BASE_PATH + "/aThinlet.java");
+    final Map<String, PsiType> types = new LinkedHashMap<String, PsiType>();
+    getFile().accept(new JavaRecursiveElementWalkingVisitor() {
+      @Override
+      public void visitExpression(PsiExpression expression) {
+        super.visitExpression(expression);
+        addType(expression.getType());
+      }
+
+      @Override
+      public void visitVariable(PsiVariable variable) {
+        super.visitVariable(variable);
+        addType(variable.getType());
+      }
+
+      private void addType(PsiType type) {
+        if (type != null && types.size() < 300 && !types.containsKey(type.getCanonicalText())) {
+          types.put(type.getCanonicalText(), type);
+        }
+      }
+    });
+    assertTrue(String.valueOf(types.size()), types.size() > 20);
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        for (PsiType left : types.values()) {
+          for (PsiType right : types.values()) {
+            TypeConversionUtil.isAssignable(left, right);
+          }
+        }
+      }
+    }).cpuBound().assertTiming();
+  }
+
   public void testDuplicateMethods() throws Exception {
     StringBuilder text = new StringBuilder("class X {\n");
     int N = 1000;
@@ -16,8 +16,17 @@
 package com.intellij.codeInsight.daemon.lambda;
 
 import com.intellij.codeInsight.daemon.LightDaemonAnalyzerTestCase;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.projectRoots.JavaSdkVersion;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.source.resolve.PsiResolveHelperImpl;
+import com.intellij.psi.impl.source.resolve.graphInference.PsiGraphInferenceHelper;
 import com.intellij.testFramework.IdeaTestUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
 import org.jetbrains.annotations.NonNls;
 
 public class GraphInferenceHighlightingTest extends LightDaemonAnalyzerTestCase {
@@ -83,6 +92,80 @@ public class GraphInferenceHighlightingTest extends LightDaemonAnalyzerTestCase
     doTest();
   }
 
+  public void testDeeplyNestedCallsPerformance() throws Exception {
+    enableGraphInference();
+    final String filePath = BASE_PATH + "/" + getTestName(false) + ".java";
+    configureByFile(filePath);
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        getPsiManager().dropResolveCaches();
+        doTestConfiguredFile(false, false, filePath);
+      }
+    }).cpuBound().assertTiming();
+  }
+
+  public void testNestedCallInferenceUpdatedAfterEdit() throws Exception {
+    enableGraphInference();
+    final Document document = configureFromFileText("Main.java", "import java.util.*;\n" +
+                                                                 "class Main {\n" +
+                                                                 "  static <B> List<B> wrap(B b) { return null; }\n" +
+                                                                 "  static <K> K first(List<K> l) { return null; }\n" +
+                                                                 "  static String arg() { return null; }\n" +
+                                                                 "  void m() {\n" +
+                                                                 "    String s = first(wrap(arg()));\n" +
+                                                                 "  }\n" +
+                                                                 "}");
+    assertEmpty(highlightErrors());
+
+    ApplicationManager.getApplication().runWriteAction(new Runnable() {
+      @Override
+      public void run() {
+        int offset = document.getText().indexOf("String arg()");
+        document.replaceString(offset, offset + "String".length(), "Integer");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+      }
+    });
+    assertFalse(highlightErrors().isEmpty());
+  }
+
+  public void testNestedCallInOverloadedOuterCall() throws Exception {
+    enableGraphInference();
+    configureFromFileText("Main.java", "import java.util.*;\n" +
+                                       "class Main {\n" +
+                                       "  static <B> List<B> wrap(B b) { return null; }\n" +
+                                       "  static void take(List<String> l, String s) {}\n" +
+                                       "  static void take(List<Integer> l, Integer i) {}\n" +
+                                       "  void m() {\n" +
+                                       "    take(wrap(null), \"\");\n" +
+                                       "    take(wrap(null), 1);\n" +
+                                       "  }\n" +
+                                       "}");
+    assertEmpty(highlightErrors());
+    assertEquals("java.lang.String", getSecondParameterTypeOfCalledMethod("take(wrap(null), \"\")"));
+    assertEquals("java.lang.Integer", getSecondParameterTypeOfCalledMethod("take(wrap(null), 1)"));
+  }
+
+  private static String getSecondParameterTypeOfCalledMethod(String callText) {
+    PsiReference reference = getFile().findReferenceAt(getFile().getText().indexOf(callText));
+    assertNotNull(callText, reference);
+    PsiElement method = reference.resolve();
+    assertInstanceOf(method, PsiMethod.class);
+    return ((PsiMethod)method).getParameterList().getParameters()[1].getType().getCanonicalText();
+  }
+
+  private void enableGraphInference() {
+    IdeaTestUtil.setTestVersion(JavaSdkVersion.JDK_1_8, getModule(), getTestRootDisposable());
+    final PsiResolveHelperImpl helper = (PsiResolveHelperImpl)JavaPsiFacade.getInstance(getProject()).getResolveHelper();
+    helper.setTestHelper(new PsiGraphInferenceHelper(getPsiManager()));
+    Disposer.register(getTestRootDisposable(), new Disposable() {
+      @Override
+      public void dispose() {
+        helper.setTestHelper(null);
+      }
+    });
+  }
+
   private void doTest() throws Exception {
     doTest(false);
   }
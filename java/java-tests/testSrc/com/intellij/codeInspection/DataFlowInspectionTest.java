@@ -18,8 +18,11 @@ package com.intellij.codeInspection;
 import com.intellij.JavaTestUtil;
 import com.intellij.codeInsight.*;
 import com.intellij.codeInspection.dataFlow.DataFlowInspection;
+import com.intellij.codeInspection.dataFlow.MethodNullityInference;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.registry.RegistryValue;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiMethod;
 import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
@@ -299,6 +302,17 @@ public class DataFlowInspectionTest extends LightCodeInsightFixtureTestCase {
   public void testNoConfusionWithAnonymousConstantInitializer() { doTest(); }
   public void testForeachOverWildcards() { doTest(); }
   public void testFinalGetter() { doTest(); }
+  public void testInferredNullityOfNonOverridableMethods() { doTest(); }
+  public void testInferredNullityDisabled() {
+    RegistryValue inference = Registry.get(MethodNullityInference.REGISTRY_KEY);
+    inference.setValue(false);
+    try {
+      doTest();
+    }
+    finally {
+      inference.setValue(true);
+    }
+  }
   
   public void testManySequentialIfsNotComplex() { doTest(); }
   public void testManySequentialInstanceofsNotComplex() { doTest(); }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInspection;
+
+import com.intellij.codeInspection.duplicates.DuplicateCodeFragmentInspection;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+public class DuplicateCodeFragmentInspectionTest extends LightCodeInsightFixtureTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.enableInspections(new DuplicateCodeFragmentInspection());
+  }
+
+  public void testCloneWithOtherNamesAndLiterals() {
+    myFixture.addClass("class B {\n" +
+                       "  void g(int[] data) {\n" +
+                       "    int total = 1;\n" +
+                       "    for (int j = 0; j < data.length; j++) total += data[j];\n" +
+                       "    System.out.println(\"total \" + total);\n" +
+                       "  }\n" +
+                       "}");
+    myFixture.configureByText("A.java", "class A {\n" +
+                                        "  void f(int[] values) {\n" +
+                                        "    <warning descr=\"Duplicated code fragment (1 more occurrence in the project)\">int sum = 0;\n" +
+                                        "    for (int i = 0; i < values.length; i++) sum += values[i];\n" +
+                                        "    System.out.println(\"sum: \" + sum);</warning>\n" +
+                                        "  }\n" +
+                                        "}");
+    myFixture.checkHighlighting();
+  }
+
+  public void testDifferentStructure() {
+    myFixture.addClass("class B {\n" +
+                       "  void g(int[] data) {\n" +
+                       "    int total = 1;\n" +
+                       "    for (int j = 0; j < data.length; j++) total -= data[j];\n" +
+                       "    System.out.println(\"total \" + total);\n" +
+                       "  }\n" +
+                       "}");
+    myFixture.configureByText("A.java", "class A {\n" +
+                                        "  void f(int[] values) {\n" +
+                                        "    int sum = 0;\n" +
+                                        "    for (int i = 0; i < values.length; i++) sum += values[i];\n" +
+                                        "    System.out.println(\"sum: \" + sum);\n" +
+                                        "  }\n" +
+                                        "}");
+    myFixture.checkHighlighting();
+  }
+
+  public void testShortFragmentIsNotReported() {
+    myFixture.addClass("class B { void g() { int a = 0; a++; System.out.println(a); } }");
+    myFixture.configureByText("A.java", "class A { void f() { int b = 0; b++; System.out.println(b); } }");
+    myFixture.checkHighlighting();
+  }
+
+  public void testOverlappingRepeatedStatementsInOneFile() {
+    myFixture.configureByText("A.java", "class A {\n" +
+                                        "  void f(StringBuilder builder) {\n" +
+                                        "    builder.append(\"a\").append(1).append('c');\n" +
+                                        "    builder.append(\"a\").append(1).append('c');\n" +
+                                        "    builder.append(\"a\").append(1).append('c');\n" +
+                                        "    builder.append(\"a\").append(1).append('c');\n" +
+                                        "  }\n" +
+                                        "}");
+    myFixture.checkHighlighting();
+  }
+}
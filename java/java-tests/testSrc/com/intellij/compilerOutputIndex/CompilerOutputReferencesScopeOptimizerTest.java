@@ -0,0 +1,203 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.compilerOutputIndex;
+
+import com.intellij.compilerOutputIndex.api.fs.FileVisitorService;
+import com.intellij.compilerOutputIndex.api.indexer.CompilerOutputIndexer;
+import com.intellij.compilerOutputIndex.impl.references.CompilerOutputReferencesScopeOptimizer;
+import com.intellij.mock.MockProgressIndicator;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.PsiTestUtil;
+import com.intellij.testFramework.fixtures.JavaCodeInsightFixtureTestCase;
+import com.intellij.util.Consumer;
+import com.sun.tools.javac.Main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompilerOutputReferencesScopeOptimizerTest extends JavaCodeInsightFixtureTestCase {
+  private File myOutput;
+
+  @Override
+  protected void setUp() throws Exception {
+    Registry.get(CompilerOutputIndexer.FIND_USAGES_REGISTRY_KEY).setValue(true);
+    super.setUp();
+    myOutput = FileUtil.createTempDirectory(getTestName(true), "_compiled");
+    PsiTestUtil.setCompilerOutputPath(myModule, VfsUtilCore.pathToUrl(myOutput.getPath()), false);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      final CompilerOutputIndexer indexer = CompilerOutputIndexer.getInstance(getProject());
+      indexer.projectClosed();
+      indexer.removeIndexes();
+    }
+    finally {
+      super.tearDown();
+      Registry.get(CompilerOutputIndexer.FIND_USAGES_REGISTRY_KEY).setValue(false);
+    }
+  }
+
+  public void testFileWithoutReferencesIsExcluded() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass caller = myFixture.addClass("public class Caller { void m(Base b) { b.foo(); } }");
+    final PsiClass other = myFixture.addClass("public class Other { void m(Base b) { b.toString(); } }");
+    compileAndIndex(true);
+
+    final GlobalSearchScope scope = getScope(base.findMethodsByName("foo", false)[0]);
+    assertTrue(contains(scope, caller));
+    assertFalse(contains(scope, other));
+  }
+
+  public void testCallOfOverriddenSuperMethod() {
+    myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass derived = myFixture.addClass("public class Derived extends Base { public void foo() {} }");
+    final PsiClass caller = myFixture.addClass("public class Caller { void m(Base b) { b.foo(); } }");
+    final PsiClass other = myFixture.addClass("public class Other { void m(Derived d) { d.toString(); } }");
+    compileAndIndex(true);
+
+    final GlobalSearchScope scope = getScope(derived.findMethodsByName("foo", false)[0]);
+    assertTrue(contains(scope, caller));
+    assertFalse(contains(scope, other));
+  }
+
+  public void testReferenceFromInnerClass() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass outer = myFixture.addClass("public class Outer { class Inner { void m(Base b) { b.foo(); } } }");
+    compileAndIndex(true);
+
+    assertTrue(contains(getScope(base.findMethodsByName("foo", false)[0]), outer));
+  }
+
+  public void testInnerClassNotIndexedYet() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass outer = myFixture.addClass("public class Outer { class Inner { void m(Base b) { b.foo(); } } }");
+    compileAndIndex(false);
+
+    assertTrue(contains(getScope(base.findMethodsByName("foo", false)[0]), outer));
+  }
+
+  public void testUnsavedDocument() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass other = myFixture.addClass("public class Other { void m(Base b) { } }");
+    compileAndIndex(true);
+
+    final Document document = FileDocumentManager.getInstance().getDocument(other.getContainingFile().getVirtualFile());
+    assertNotNull(document);
+    ApplicationManager.getApplication().runWriteAction(new Runnable() {
+      @Override
+      public void run() {
+        document.insertString(document.getText().indexOf("{ }") + 1, "b.foo();");
+      }
+    });
+
+    assertTrue(contains(getScope(base.findMethodsByName("foo", false)[0]), other));
+  }
+
+  public void testSourceChangedAfterCompilation() throws Exception {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass other = myFixture.addClass("public class Other { void m(Base b) { } }");
+    compileAndIndex(true);
+
+    final VirtualFile file = other.getContainingFile().getVirtualFile();
+    assertTrue(new File(file.getPath()).setLastModified(new File(myOutput, "Other.class").lastModified() + 10000));
+    VfsUtil.markDirtyAndRefresh(false, false, false, file);
+
+    assertTrue(contains(getScope(base.findMethodsByName("foo", false)[0]), other));
+  }
+
+  public void testReferenceInConstantFalseBranch() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    final PsiClass caller = myFixture.addClass("public class Caller {\n" +
+                                               "  static final boolean DEBUG = false;\n" +
+                                               "  void m(Base b) { if (DEBUG) b.foo(); }\n" +
+                                               "}");
+    compileAndIndex(true);
+
+    assertTrue(contains(getScope(base.findMethodsByName("foo", false)[0]), caller));
+  }
+
+  public void testScopesOfDifferentMembersAreNotEqual() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} public void bar() {} }");
+    myFixture.addClass("public class Caller { void m(Base b) { b.foo(); } }");
+    compileAndIndex(true);
+
+    final GlobalSearchScope fooScope = getScope(base.findMethodsByName("foo", false)[0]);
+    assertFalse(fooScope.equals(getScope(base.findMethodsByName("bar", false)[0])));
+    assertEquals(fooScope, getScope(base.findMethodsByName("foo", false)[0]));
+  }
+
+  public void testDisabledInRegistry() {
+    final PsiClass base = myFixture.addClass("public class Base { public void foo() {} }");
+    myFixture.addClass("public class Other { void m(Base b) { } }");
+    compileAndIndex(true);
+
+    Registry.get(CompilerOutputIndexer.FIND_USAGES_REGISTRY_KEY).setValue(false);
+    assertNull(new CompilerOutputReferencesScopeOptimizer().getScopeWithCodeReferences(base.findMethodsByName("foo", false)[0]));
+  }
+
+  private void compileAndIndex(final boolean indexNestedClasses) {
+    final List<String> args = new ArrayList<String>();
+    args.add("-d");
+    args.add(myOutput.getPath());
+    for (File file : new File(myFixture.getTempDirPath()).listFiles()) {
+      if (file.getName().endsWith(".java")) {
+        args.add(file.getPath());
+      }
+    }
+    assertEquals(0, Main.compile(args.toArray(new String[args.size()])));
+
+    final CompilerOutputIndexer indexer = CompilerOutputIndexer.getInstance(getProject());
+    indexer.projectOpened();
+    indexer.clear();
+    final FileVisitorService allClasses = new FileVisitorService.DirectoryClassFiles(myOutput);
+    indexer.reindex(indexNestedClasses ? allClasses : new FileVisitorService() {
+      @Override
+      public void visit(final Consumer<File> visitor) {
+        allClasses.visit(new Consumer<File>() {
+          @Override
+          public void consume(File file) {
+            if (!file.getName().contains("$")) {
+              visitor.consume(file);
+            }
+          }
+        });
+      }
+    }, new MockProgressIndicator());
+  }
+
+  private static GlobalSearchScope getScope(final PsiMethod method) {
+    final GlobalSearchScope scope = new CompilerOutputReferencesScopeOptimizer().getScopeWithCodeReferences(method);
+    assertNotNull(scope);
+    return scope;
+  }
+
+  private static boolean contains(final GlobalSearchScope scope, final PsiClass aClass) {
+    return scope.contains(aClass.getContainingFile().getVirtualFile());
+  }
+}
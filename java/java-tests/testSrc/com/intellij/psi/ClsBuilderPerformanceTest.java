@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi;
+
+import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.roots.OrderRootType;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.psi.impl.compiled.DefaultClsStubBuilderFactory;
+import com.intellij.testFramework.LightIdeaTestCase;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClsBuilderPerformanceTest extends LightIdeaTestCase {
+  public void testBuildStubsForJdkClasses() throws Exception {
+    final List<VirtualFile> classFiles = new ArrayList<VirtualFile>();
+    for (VirtualFile root : getProjectJDK().getRootProvider().getFiles(OrderRootType.CLASSES)) {
+      VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor() {
+        @Override
+        public boolean visitFile(@NotNull VirtualFile file) {
+          if (!file.isDirectory() && StdFileTypes.CLASS.equals(file.getFileType())) {
+            classFiles.add(file);
+          }
+          return true;
+        }
+      });
+    }
+    final DefaultClsStubBuilderFactory factory = new DefaultClsStubBuilderFactory();
+
+    PlatformTestUtil.startPerformanceTest("Building stubs for " + classFiles.size() + " class files", 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        for (VirtualFile file : classFiles) {
+          if (!factory.isInnerClass(file)) {
+            factory.buildFileStub(file, file.contentsToByteArray());
+          }
+        }
+      }
+    }).cpuBound().assertTiming();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.resolve;
+
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.registry.RegistryValue;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiMember;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.impl.PsiClassImplUtil;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+
+/**
+ * Checks that resolve gives the same results whether the class members map is built on demand or the supers are walked for each reference
+ */
+public class ResolveWithMembersMapTest extends LightCodeInsightFixtureTestCase {
+  public void testMethodOfTypeParameterBound() {
+    assertResolvesTo("class Base { void foo() {} }\n" +
+                     "class Test<T extends Base> { void bar(T t) { t.fo<caret>o(); } }", "Base", "foo");
+  }
+
+  public void testInnerClassInTypeParameterBound() {
+    assertResolvesTo("class Outer {\n" +
+                     "  static class Inner {}\n" +
+                     "  static class Holder<T extends Outer.In<caret>ner> {}\n" +
+                     "}", "Outer", "Inner");
+  }
+
+  public void testConstantInAnnotationArgument() {
+    assertResolvesTo("@interface Anno { String value(); }\n" +
+                     "class Constants { static final String NAME = \"n\"; }\n" +
+                     "@Anno(Constants.NA<caret>ME) class Test {}", "Constants", "NAME");
+  }
+
+  public void testOwnConstantInMemberAnnotationArgument() {
+    assertResolvesTo("@interface Anno { String value(); }\n" +
+                     "class Test {\n" +
+                     "  static final String NAME = \"n\";\n" +
+                     "  @Anno(NA<caret>ME) void foo() {}\n" +
+                     "}", "Test", "NAME");
+  }
+
+  public void testMutuallyDependentInnerClasses() {
+    assertResolvesTo("class Outer {\n" +
+                     "  class A { B b; void f() { b.g<caret>(); } void h() {} }\n" +
+                     "  class B { A a; void g() { a.h(); } }\n" +
+                     "}", "B", "g");
+  }
+
+  public void testInnerClassExtendingNestedClassOfSibling() {
+    assertResolvesTo("class Outer {\n" +
+                     "  static class A extends B.Nested { void a() { b<caret>(); } }\n" +
+                     "  static class B { A a; static class Nested { void b() {} } }\n" +
+                     "}", "Nested", "b");
+  }
+
+  public void testInheritedFieldHidesOuterField() {
+    assertResolvesTo("class Base { int x; }\n" +
+                     "class Outer {\n" +
+                     "  int x;\n" +
+                     "  class Inner extends Base { int f() { return <caret>x; } }\n" +
+                     "}", "Base", "x");
+  }
+
+  public void testReferenceInExtendsList() {
+    assertResolvesTo("class Outer {\n" +
+                     "  static class Base {}\n" +
+                     "  static class Derived extends Ba<caret>se {}\n" +
+                     "}", "Outer", "Base");
+  }
+
+  public void testReferenceInThrowsList() {
+    assertResolvesTo("class Outer {\n" +
+                     "  static class Failure extends Exception {}\n" +
+                     "  void f() throws Outer.Fail<caret>ure {}\n" +
+                     "}", "Outer", "Failure");
+  }
+
+  public void testMemberOfLocalClass() {
+    assertResolvesTo("class Test {\n" +
+                     "  void f() {\n" +
+                     "    class Local { void g() {} }\n" +
+                     "    new Local().<caret>g();\n" +
+                     "  }\n" +
+                     "}", "Local", "g");
+  }
+
+  public void testMemberOfAnonymousClassSuper() {
+    assertResolvesTo("class Base { void g() {} }\n" +
+                     "class Test {\n" +
+                     "  void f() {\n" +
+                     "    new Base() { void h() { <caret>g(); } };\n" +
+                     "  }\n" +
+                     "}", "Base", "g");
+  }
+
+  private void assertResolvesTo(String text, String containingClassName, String name) {
+    RegistryValue onDemand = Registry.get(PsiClassImplUtil.MEMBERS_MAP_ON_DEMAND_REGISTRY_KEY);
+    boolean oldValue = onDemand.asBoolean();
+    try {
+      for (boolean value : new boolean[]{true, false}) {
+        onDemand.setValue(value);
+        // a new file is configured each time so that the members maps built with the other setting are out of date
+        myFixture.configureByText("Test.java", text);
+        PsiElement target = myFixture.getReferenceAtCaretPositionWithAssertion().resolve();
+        String message = "members map on demand: " + value;
+        assertNotNull(message, target);
+        assertEquals(message, name, ((PsiNamedElement)target).getName());
+        assertEquals(message, containingClassName, ((PsiMember)target).getContainingClass().getName());
+      }
+    }
+    finally {
+      onDemand.setValue(oldValue);
+    }
+  }
+}
@@ -27,4 +27,7 @@ public interface GlobalOptions {
   String COMPILE_PARALLEL_MAX_THREADS_OPTION = "compile.parallel.max.threads";
   String REBUILD_ON_DEPENDENCY_CHANGE_OPTION = "rebuild.on.dependency.change";
   String LOG_DIR_OPTION = "log.dir";
+  String USE_CONTENT_HASHES_OPTION = "use.content.hashes";
+  String BUILD_OUTPUT_CACHE_DIR_OPTION = "build.output.cache.dir";
+  String BUILD_TRACE_FILE_OPTION = "build.trace.file";
 }
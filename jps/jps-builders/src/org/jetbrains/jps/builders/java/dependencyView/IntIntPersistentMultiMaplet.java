@@ -35,7 +35,7 @@ import java.io.*;
  */
 class IntIntPersistentMultiMaplet extends IntIntMultiMaplet {
   private static final TIntHashSet NULL_COLLECTION = new TIntHashSet();
-  private static final int CACHE_SIZE = 128;
+  private static final int CACHE_SIZE = 1024;
   private final PersistentHashMap<Integer, TIntHashSet> myMap;
   private final SLRUCache<Integer, TIntHashSet> myCache;
 
@@ -58,6 +58,10 @@ class IntIntPersistentMultiMaplet extends IntIntMultiMaplet {
 
   @Override
   public boolean containsKey(final int key) {
+    final TIntHashSet cached = myCache.getIfCached(key);
+    if (cached != null) {
+      return cached != NULL_COLLECTION;
+    }
     try {
       return myMap.containsMapping(key);
     }
@@ -90,6 +94,11 @@ class IntIntPersistentMultiMaplet extends IntIntMultiMaplet {
 
   @Override
   public void put(final int key, final TIntHashSet value) {
+    final TIntHashSet cached = myCache.getIfCached(key);
+    if (cached != null && cached != NULL_COLLECTION && cached.containsAll(value.toArray())) {
+      // avoid appending the same data again: the value is read back as a set anyway
+      return;
+    }
     try {
       myCache.remove(key);
       myMap.appendData(key, new PersistentHashMap.ValueDataAppender() {
@@ -122,6 +131,10 @@ class IntIntPersistentMultiMaplet extends IntIntMultiMaplet {
 
   @Override
   public void put(final int key, final int value) {
+    final TIntHashSet cached = myCache.getIfCached(key);
+    if (cached != null && cached != NULL_COLLECTION && cached.contains(value)) {
+      return;
+    }
     try {
       myCache.remove(key);
       myMap.appendData(key, new PersistentHashMap.ValueDataAppender() {
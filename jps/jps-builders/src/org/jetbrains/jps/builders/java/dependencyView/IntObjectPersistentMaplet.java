@@ -61,6 +61,10 @@ public class IntObjectPersistentMaplet<V> extends IntObjectMaplet<V>{
 
   @Override
   public boolean containsKey(final int key) {
+    final Object cached = myCache.getIfCached(key);
+    if (cached != null) {
+      return cached != NULL_OBJ;
+    }
     try {
       return myMap.containsMapping(key);
     }
@@ -33,7 +33,7 @@ import java.util.Collections;
  */
 class IntObjectPersistentMultiMaplet<V extends Streamable> extends IntObjectMultiMaplet<V> {
   private static final Collection NULL_COLLECTION = Collections.emptySet();
-  private static final int CACHE_SIZE = 128;
+  private static final int CACHE_SIZE = 512;
   private final PersistentHashMap<Integer, Collection<V>> myMap;
   private final DataExternalizer<V> myValueExternalizer;
   private final SLRUCache<Integer, Collection> myCache;
@@ -62,6 +62,10 @@ class IntObjectPersistentMultiMaplet<V extends Streamable> extends IntObjectMult
 
   @Override
   public boolean containsKey(final int key) {
+    final Collection cached = myCache.getIfCached(key);
+    if (cached != null) {
+      return cached != NULL_COLLECTION;
+    }
     try {
       return myMap.containsMapping(key);
     }
@@ -33,7 +33,7 @@ import java.util.Collections;
  */
 public class ObjectObjectPersistentMultiMaplet<K, V extends Streamable> extends ObjectObjectMultiMaplet<K, V>{
   private static final Collection NULL_COLLECTION = Collections.emptySet();
-  private static final int CACHE_SIZE = 128;
+  private static final int CACHE_SIZE = 512;
   private final PersistentHashMap<K, Collection<V>> myMap;
   private final DataExternalizer<V> myValueExternalizer;
   private final SLRUCache<K, Collection> myCache;
@@ -62,6 +62,10 @@ public class ObjectObjectPersistentMultiMaplet<K, V extends Streamable> extends
 
   @Override
   public boolean containsKey(final K key) {
+    final Collection cached = myCache.getIfCached(key);
+    if (cached != null) {
+      return cached != NULL_COLLECTION;
+    }
     try {
       return myMap.containsMapping(key);
     }
@@ -35,12 +35,17 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.api.CmdlineProtoUtil;
 import org.jetbrains.jps.api.CmdlineRemoteProto;
 import org.jetbrains.jps.api.GlobalOptions;
+import org.jetbrains.jps.incremental.BuilderRegistry;
+import org.jetbrains.jps.incremental.TargetTypeRegistry;
 import org.jetbrains.jps.incremental.Utils;
+import org.jetbrains.jps.model.serialization.JpsModelSerializerExtension;
 import org.jetbrains.jps.service.SharedThreadPool;
 
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * @author Eugene Zhuravlev
@@ -59,6 +64,9 @@ public class BuildMain {
   }
 
   private static NioEventLoopGroup ourEventLoopGroup;
+  private static final long ourStartTime = System.currentTimeMillis();
+  private static Future<?> ourRegistriesInitialization;
+  private static volatile Throwable ourRegistriesInitializationError;
 
   public static void main(String[] args){
     System.out.println("Build process started. Classpath: " + System.getProperty("java.class.path"));
@@ -69,6 +77,25 @@ public class BuildMain {
     final File systemDir = new File(FileUtil.toCanonicalPath(args[3]));
     Utils.setSystemRoot(systemDir);
 
+    // builders, target types and model serializers are needed by every build which can't be skipped,
+    // so initialize them while the connection to the IDE is established and build parameters are received
+    ourRegistriesInitialization = SharedThreadPool.getInstance().executeOnPooledThread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          JpsModelSerializerExtension.getExtensions();
+          TargetTypeRegistry.getInstance();
+          BuilderRegistry.getInstance();
+          LOG.info("Build registries initialized " + (System.currentTimeMillis() - ourStartTime) + " ms after process start");
+        }
+        catch (Throwable e) {
+          // a failed class initializer isn't retried, so the session reports this error instead of a NoClassDefFoundError
+          LOG.error(e);
+          ourRegistriesInitializationError = e;
+        }
+      }
+    });
+
     ourEventLoopGroup = new NioEventLoopGroup(1, SharedThreadPool.getInstance());
     final Bootstrap bootstrap = new Bootstrap().group(ourEventLoopGroup).channel(NioSocketChannel.class).handler(new ChannelInitializer() {
       @Override
@@ -117,6 +144,7 @@ public class BuildMain {
 
           case BUILD_PARAMETERS: {
             if (mySession == null) {
+              LOG.info("Build parameters received " + (System.currentTimeMillis() - ourStartTime) + " ms after process start");
               final CmdlineRemoteProto.Message.ControllerMessage.FSEvent delta = controllerMessage.hasFsEvent()? controllerMessage.getFsEvent() : null;
               final BuildSession session = new BuildSession(mySessionId, channel, controllerMessage.getParamsMessage(), delta);
               mySession = session;
@@ -125,7 +153,14 @@ public class BuildMain {
                 public void run() {
                   //noinspection finally
                   try {
-                    session.run();
+                    final Throwable initializationError = waitForRegistries();
+                    if (initializationError != null) {
+                      channel.writeAndFlush(CmdlineProtoUtil.toMessage(mySessionId, CmdlineProtoUtil.createFailure(
+                        "Cannot initialize build registries: " + initializationError.getMessage(), initializationError)));
+                    }
+                    else {
+                      session.run();
+                    }
                   }
                   finally {
                     channel.close();
@@ -174,6 +209,20 @@ public class BuildMain {
         CmdlineProtoUtil.toMessage(mySessionId, CmdlineProtoUtil.createFailure("Unsupported message type: " + type.name(), null)));
     }
 
+    @Nullable
+    private static Throwable waitForRegistries() {
+      try {
+        ourRegistriesInitialization.get();
+      }
+      catch (InterruptedException e) {
+        LOG.info(e);
+      }
+      catch (ExecutionException e) {
+        LOG.info(e);
+      }
+      return ourRegistriesInitializationError;
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext context) throws Exception {
       try {
@@ -66,7 +66,7 @@ public final class BinaryContent {
       if (parentFile == null) {
         throw e;
       }
-      if (!parentFile.mkdirs()) {
+      if (!parentFile.mkdirs() && !parentFile.isDirectory()) { // the directory may be created concurrently
         throw e;
       }
       // second attempt
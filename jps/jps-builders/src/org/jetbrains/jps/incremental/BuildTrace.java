@@ -0,0 +1,213 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.EmptyRunnable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.api.GlobalOptions;
+import org.jetbrains.jps.incremental.messages.CustomBuilderMessage;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Records the durations of build activities (waiting in the queue, building a target, running a builder, compiling, analyzing
+ * dependencies, flushing storages) when the {@link GlobalOptions#BUILD_TRACE_FILE_OPTION} system property is set.
+ * <p/>
+ * Details of chunk activities are the chunk targets. When the build finishes, the activities are reported to the IDE as
+ * {@link CustomBuilderMessage}s with {@link #BUILDER_ID} id: the total time of each builder with {@link #BUILDER_TIME_MESSAGE_TYPE}
+ * type, and the total time of each activity of a target with {@link #ACTIVITY_TIME_MESSAGE_TYPE} type (see
+ * {@link #formatActivityTime}). All activities are also saved to the file in the Chrome trace event format, so they can be viewed
+ * per thread in chrome://tracing.
+ */
+public class BuildTrace {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.BuildTrace");
+  public static final String BUILDER_ID = "build.trace";
+  public static final String BUILDER_TIME_MESSAGE_TYPE = "builder.time";
+  public static final String ACTIVITY_TIME_MESSAGE_TYPE = "activity.time";
+  public static final char ACTIVITY_FIELD_SEPARATOR = '\t';
+  public static final String QUEUE_CATEGORY = "queue";
+  public static final String TARGET_CATEGORY = "target";
+  public static final String BUILDER_CATEGORY = "builder";
+  public static final String COMPILER_CATEGORY = "compiler";
+  public static final String DEPENDENCY_ANALYSIS_CATEGORY = "dependency analysis";
+  public static final String STORAGE_CATEGORY = "storage";
+  private static final String TRACE_FILE_PATH = System.getProperty(GlobalOptions.BUILD_TRACE_FILE_OPTION);
+  private static final GlobalContextKey<BuildTrace> KEY = GlobalContextKey.create("_build_trace_");
+
+  private final long myStartNanos = System.nanoTime();
+  private final List<Activity> myActivities = new ArrayList<Activity>();
+
+  private static class Activity {
+    final String myCategory;
+    final String myName;
+    final String myDetails;
+    final long myThreadId;
+    final long myStartNanos;
+    final long myEndNanos;
+
+    Activity(String category, String name, String details, long threadId, long startNanos, long endNanos) {
+      myCategory = category;
+      myName = name;
+      myDetails = details;
+      myThreadId = threadId;
+      myStartNanos = startNanos;
+      myEndNanos = endNanos;
+    }
+  }
+
+  static void install(CompileContext context) {
+    if (!StringUtil.isEmptyOrSpaces(TRACE_FILE_PATH)) {
+      KEY.set(context, new BuildTrace());
+    }
+  }
+
+  /**
+   * @return runnable which must be invoked when the activity is finished
+   */
+  @NotNull
+  public static Runnable startActivity(CompileContext context, @NotNull final String category, @NotNull final String name,
+                                       @Nullable final String details) {
+    final BuildTrace trace = KEY.get(context);
+    if (trace == null) {
+      return EmptyRunnable.INSTANCE;
+    }
+    final long start = System.nanoTime();
+    return new Runnable() {
+      @Override
+      public void run() {
+        trace.addActivity(category, name, details, start);
+      }
+    };
+  }
+
+  /**
+   * Records an activity started at the given {@link System#nanoTime()} and finished now
+   */
+  public static void addActivity(CompileContext context, @NotNull String category, @NotNull String name, @Nullable String details,
+                                 long startNanos) {
+    final BuildTrace trace = KEY.get(context);
+    if (trace != null) {
+      trace.addActivity(category, name, details, startNanos);
+    }
+  }
+
+  private void addActivity(String category, String name, String details, long startNanos) {
+    final Activity activity = new Activity(category, name, details, Thread.currentThread().getId(), startNanos, System.nanoTime());
+    synchronized (myActivities) {
+      myActivities.add(activity);
+    }
+  }
+
+  static void finish(@Nullable CompileContext context) {
+    final BuildTrace trace = context != null ? KEY.get(context) : null;
+    if (trace == null) {
+      return;
+    }
+    KEY.set(context, null);
+    final List<Activity> activities;
+    synchronized (trace.myActivities) {
+      activities = new ArrayList<Activity>(trace.myActivities);
+    }
+    reportBuilderTimes(context, activities);
+    reportActivityTimes(context, activities);
+    final File file = new File(TRACE_FILE_PATH);
+    try {
+      trace.save(file, activities);
+      LOG.info("Build trace saved to " + file.getAbsolutePath());
+    }
+    catch (IOException e) {
+      LOG.info("Cannot save build trace to " + file.getAbsolutePath(), e);
+    }
+  }
+
+  private static void reportBuilderTimes(CompileContext context, List<Activity> activities) {
+    final Map<String, Long> builderTimes = new TreeMap<String, Long>();
+    for (Activity activity : activities) {
+      if (BUILDER_CATEGORY.equals(activity.myCategory)) {
+        final Long time = builderTimes.get(activity.myName);
+        builderTimes.put(activity.myName, (time != null ? time : 0L) + activity.myEndNanos - activity.myStartNanos);
+      }
+    }
+    for (Map.Entry<String, Long> entry : builderTimes.entrySet()) {
+      final long millis = entry.getValue() / 1000000;
+      LOG.info("Builder '" + entry.getKey() + "' took " + millis + " ms");
+      context.processMessage(new CustomBuilderMessage(BUILDER_ID, BUILDER_TIME_MESSAGE_TYPE, entry.getKey() + "=" + millis));
+    }
+  }
+
+  private static void reportActivityTimes(CompileContext context, List<Activity> activities) {
+    // repeated activities of a target, e.g. builder passes or javac rounds, are summed up
+    final Map<List<String>, Long> activityTimes = new LinkedHashMap<List<String>, Long>();
+    for (Activity activity : activities) {
+      final List<String> key = Arrays.asList(activity.myCategory, activity.myName, StringUtil.notNullize(activity.myDetails));
+      final Long time = activityTimes.get(key);
+      activityTimes.put(key, (time != null ? time : 0L) + activity.myEndNanos - activity.myStartNanos);
+    }
+    for (Map.Entry<List<String>, Long> entry : activityTimes.entrySet()) {
+      final List<String> key = entry.getKey();
+      final String text = formatActivityTime(key.get(0), key.get(1), key.get(2), entry.getValue() / 1000000);
+      context.processMessage(new CustomBuilderMessage(BUILDER_ID, ACTIVITY_TIME_MESSAGE_TYPE, text));
+    }
+  }
+
+  /**
+   * @return text of a {@link #ACTIVITY_TIME_MESSAGE_TYPE} message: category, name, details (empty if there are none) and duration
+   * in milliseconds separated by {@link #ACTIVITY_FIELD_SEPARATOR}
+   */
+  @NotNull
+  public static String formatActivityTime(@NotNull String category, @NotNull String name, @NotNull String details, long millis) {
+    return category + ACTIVITY_FIELD_SEPARATOR + name.replace(ACTIVITY_FIELD_SEPARATOR, ' ') + ACTIVITY_FIELD_SEPARATOR +
+           details.replace(ACTIVITY_FIELD_SEPARATOR, ' ') + ACTIVITY_FIELD_SEPARATOR + millis;
+  }
+
+  private void save(File file, List<Activity> activities) throws IOException {
+    FileUtil.createParentDirs(file);
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writer.write("{\"traceEvents\":[");
+      boolean first = true;
+      for (Activity activity : activities) {
+        if (!first) {
+          writer.write(",");
+        }
+        first = false;
+        writer.write("\n{\"ph\":\"X\",\"pid\":1");
+        writer.write(",\"tid\":" + activity.myThreadId);
+        writer.write(",\"ts\":" + (activity.myStartNanos - myStartNanos) / 1000);
+        writer.write(",\"dur\":" + (activity.myEndNanos - activity.myStartNanos) / 1000);
+        writer.write(",\"cat\":" + quote(activity.myCategory));
+        writer.write(",\"name\":" + quote(activity.myName));
+        if (activity.myDetails != null) {
+          writer.write(",\"args\":{\"details\":" + quote(activity.myDetails) + "}");
+        }
+        writer.write("}");
+      }
+      writer.write("\n]}\n");
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  private static String quote(String s) {
+    return "\"" + StringUtil.escapeStringCharacters(s) + "\"";
+  }
+}
@@ -47,6 +47,7 @@ import org.jetbrains.jps.builders.logging.ProjectBuilderLogger;
 import org.jetbrains.jps.builders.storage.SourceToOutputMapping;
 import org.jetbrains.jps.cmdline.BuildRunner;
 import org.jetbrains.jps.cmdline.ProjectDescriptor;
+import org.jetbrains.jps.incremental.cache.BuildOutputCacheOperations;
 import org.jetbrains.jps.incremental.fs.BuildFSState;
 import org.jetbrains.jps.incremental.java.ExternalJavacDescriptor;
 import org.jetbrains.jps.incremental.messages.*;
@@ -180,6 +181,7 @@ public class IncProjectBuilder {
     CompileContextImpl context = null;
     try {
       context = createContext(scope);
+      BuildTrace.install(context);
       runBuild(context, forceCleanCaches);
       myProjectDescriptor.dataManager.saveVersion();
       reportRebuiltModules(context);
@@ -224,6 +226,7 @@ public class IncProjectBuilder {
     finally {
       memWatcher.stop();
       flushContext(context);
+      BuildTrace.finish(context);
       // wait for async tasks
       final CanceledStatus status = context == null? CanceledStatus.NULL : context.getCancelStatus();
       synchronized (myAsyncTasks) {
@@ -583,8 +586,10 @@ public class IncProjectBuilder {
           }
           finally {
             context.updateCompilationStartStamp();
+            final Runnable flushTrace = BuildTrace.startActivity(context, BuildTrace.STORAGE_CATEGORY, "flush", chunk.toString());
             pd.dataManager.closeSourceToOutputStorages(Collections.singleton(chunk));
             pd.dataManager.flush(true);
+            flushTrace.run();
           }
         }
       }
@@ -721,9 +726,11 @@ public class IncProjectBuilder {
 
     private void queueTask(final BuildChunkTask task) {
       final CompileContext chunkLocalContext = createContextWrapper(myContext);
+      final long queuedAt = System.nanoTime();
       myParallelBuildExecutor.execute(new Runnable() {
         @Override
         public void run() {
+          BuildTrace.addActivity(myContext, BuildTrace.QUEUE_CATEGORY, "waiting", task.getChunk().toString(), queuedAt);
           try {
             try {
               if (myException.get() == null) {
@@ -732,8 +739,10 @@ public class IncProjectBuilder {
             }
             finally {
               myContext.updateCompilationStartStamp();
+              final Runnable flushTrace = BuildTrace.startActivity(myContext, BuildTrace.STORAGE_CATEGORY, "flush", task.getChunk().toString());
               myProjectDescriptor.dataManager.closeSourceToOutputStorages(Collections.singletonList(task.getChunk()));
               myProjectDescriptor.dataManager.flush(true);
+              flushTrace.run();
             }
           }
           catch (Throwable e) {
@@ -795,7 +804,17 @@ public class IncProjectBuilder {
 
     final BuildTarget<?> target = targets.iterator().next();
     if (target instanceof ModuleBuildTarget) {
-      return runModuleLevelBuilders(context, new ModuleChunk(Collections.singleton((ModuleBuildTarget)target)));
+      final ModuleBuildTarget moduleTarget = (ModuleBuildTarget)target;
+      final BuildOutputCacheOperations.TargetInputs cacheableInputs = BuildOutputCacheOperations.getCacheableInputs(context, moduleTarget);
+      if (cacheableInputs != null && BuildOutputCacheOperations.restoreOutputs(context, moduleTarget, cacheableInputs)) {
+        updateDoneFraction(context, 1.0f);
+        return true;
+      }
+      final boolean doneSomething = runModuleLevelBuilders(context, new ModuleChunk(Collections.singleton(moduleTarget)));
+      if (cacheableInputs != null) {
+        BuildOutputCacheOperations.storeOutputs(context, moduleTarget, cacheableInputs);
+      }
+      return doneSomething;
     }
 
     // In general the set of files corresponding to changed source file may be different
@@ -805,7 +824,13 @@ public class IncProjectBuilder {
     
     final List<TargetBuilder<?, ?>> builders = BuilderRegistry.getInstance().getTargetBuilders();
     for (TargetBuilder<?, ?> builder : builders) {
-      BuildOperations.buildTarget(target, context, builder);
+      final Runnable builderTrace = BuildTrace.startActivity(context, BuildTrace.BUILDER_CATEGORY, builder.getPresentableName(), chunk.toString());
+      try {
+        BuildOperations.buildTarget(target, context, builder);
+      }
+      finally {
+        builderTrace.run();
+      }
       updateDoneFraction(context, 1.0f / builders.size());
     }
     return true;
@@ -831,6 +856,7 @@ public class IncProjectBuilder {
 
   private void buildTargetsChunk(CompileContext context, final BuildTargetChunk chunk) throws ProjectBuildException {
     boolean doneSomething;
+    final Runnable chunkTrace = BuildTrace.startActivity(context, BuildTrace.TARGET_CATEGORY, chunk.toString(), null);
     try {
       sendBuildingTargetMessages(chunk.getTargets(), BuildingTargetProgressMessage.Event.STARTED);
       Utils.ERRORS_DETECTED_KEY.set(context, Boolean.FALSE);
@@ -889,6 +915,7 @@ public class IncProjectBuilder {
         Utils.REMOVED_SOURCES_KEY.set(context, null);
       }
       sendBuildingTargetMessages(chunk.getTargets(), BuildingTargetProgressMessage.Event.FINISHED);
+      chunkTrace.run();
     }
   }
 
@@ -1084,7 +1111,15 @@ public class IncProjectBuilder {
 
           for (ModuleLevelBuilder builder : builders) {
             processDeletedPaths(context, chunk.getTargets());
-            final ModuleLevelBuilder.ExitCode buildResult = builder.build(context, chunk, dirtyFilesHolder, outputConsumer);
+            final Runnable builderTrace = BuildTrace.startActivity(context, BuildTrace.BUILDER_CATEGORY, builder.getPresentableName(),
+                                                                     chunk.getTargets().toString());
+            final ModuleLevelBuilder.ExitCode buildResult;
+            try {
+              buildResult = builder.build(context, chunk, dirtyFilesHolder, outputConsumer);
+            }
+            finally {
+              builderTrace.run();
+            }
 
             doneSomething |= (buildResult != ModuleLevelBuilder.ExitCode.NOTHING_DONE);
 
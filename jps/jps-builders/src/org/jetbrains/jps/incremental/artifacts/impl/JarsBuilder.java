@@ -23,6 +23,7 @@ import com.intellij.openapi.util.io.FileSystemUtil;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.concurrency.BoundedTaskExecutor;
 import com.intellij.util.graph.CachingSemiGraph;
 import com.intellij.util.graph.DFSTBuilder;
 import com.intellij.util.graph.GraphGenerator;
@@ -34,6 +35,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.builders.BuildOutputConsumer;
 import org.jetbrains.jps.builders.logging.ProjectBuilderLogger;
 import org.jetbrains.jps.incremental.CompileContext;
+import org.jetbrains.jps.incremental.IncProjectBuilder;
 import org.jetbrains.jps.incremental.ProjectBuildException;
 import org.jetbrains.jps.incremental.artifacts.ArtifactOutputToSourceMapping;
 import org.jetbrains.jps.incremental.artifacts.IncArtifactBuilder;
@@ -41,9 +43,11 @@ import org.jetbrains.jps.incremental.artifacts.instructions.*;
 import org.jetbrains.jps.incremental.messages.BuildMessage;
 import org.jetbrains.jps.incremental.messages.CompilerMessage;
 import org.jetbrains.jps.incremental.messages.ProgressMessage;
+import org.jetbrains.jps.service.SharedThreadPool;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
@@ -60,6 +64,8 @@ public class JarsBuilder {
   private Map<JarInfo, File> myBuiltJars;
   private final BuildOutputConsumer myOutputConsumer;
   private final ArtifactOutputToSourceMapping myOutSrcMapping;
+  private final Executor myPackingExecutor =
+    new BoundedTaskExecutor(SharedThreadPool.getInstance(), Math.min(IncProjectBuilder.MAX_BUILDER_THREADS, Math.max(2, Runtime.getRuntime().availableProcessors())));
 
   public JarsBuilder(Set<JarInfo> jarsToBuild, CompileContext context, BuildOutputConsumer outputConsumer,
                      ArtifactOutputToSourceMapping outSrcMapping) {
@@ -81,11 +87,11 @@ public class JarsBuilder {
       return false;
     }
 
-    myBuiltJars = new HashMap<JarInfo, File>();
+    myBuiltJars = Collections.synchronizedMap(new HashMap<JarInfo, File>());
     try {
-      for (JarInfo jar : sortedJars) {
+      for (List<JarInfo> jars : groupIndependentJars(sortedJars)) {
         myContext.checkCanceled();
-        buildJar(jar);
+        buildJarsInParallel(jars);
       }
 
       myContext.processMessage(new ProgressMessage("Copying archives..."));
@@ -99,6 +105,81 @@ public class JarsBuilder {
     return true;
   }
 
+  /**
+   * Splits jars into groups which can be built concurrently: a jar is put into the group following the last group containing a jar
+   * nested into it, so all nested jars are already built when the jar itself is packed.
+   */
+  private List<List<JarInfo>> groupIndependentJars(JarInfo[] sortedJars) {
+    final Map<JarInfo, Integer> levels = new HashMap<JarInfo, Integer>();
+    final List<List<JarInfo>> groups = new ArrayList<List<JarInfo>>();
+    for (JarInfo jar : sortedJars) {
+      int level = 0;
+      for (Pair<String, Object> pair : jar.getContent()) {
+        final Integer nestedLevel = pair.getSecond() instanceof JarInfo ? levels.get((JarInfo)pair.getSecond()) : null;
+        if (nestedLevel != null) {
+          level = Math.max(level, nestedLevel + 1);
+        }
+      }
+      levels.put(jar, level);
+      while (groups.size() <= level) {
+        groups.add(new ArrayList<JarInfo>());
+      }
+      groups.get(level).add(jar);
+    }
+    return groups;
+  }
+
+  private void buildJarsInParallel(List<JarInfo> jars) throws IOException, ProjectBuildException {
+    if (jars.size() == 1) {
+      buildJar(jars.get(0));
+      return;
+    }
+
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>(jars.size());
+    for (final JarInfo jar : jars) {
+      final FutureTask<Void> future = new FutureTask<Void>(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          myContext.checkCanceled();
+          buildJar(jar);
+          return null;
+        }
+      });
+      futures.add(future);
+      myPackingExecutor.execute(future);
+    }
+
+    // wait for all tasks, so that no temporary jar is written after they are deleted
+    Throwable error = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      }
+      catch (ExecutionException e) {
+        if (error == null) {
+          error = e.getCause();
+        }
+      }
+      catch (InterruptedException e) {
+        if (error == null) {
+          error = e;
+        }
+      }
+    }
+    if (error instanceof IOException) {
+      throw (IOException)error;
+    }
+    if (error instanceof ProjectBuildException) {
+      throw (ProjectBuildException)error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException)error;
+    }
+    if (error != null) {
+      throw new ProjectBuildException(error);
+    }
+  }
+
   private void deleteTemporaryJars() {
     for (File file : myBuiltJars.values()) {
       FileUtil.delete(file);
@@ -191,11 +272,13 @@ public class JarsBuilder {
         return;
       }
 
-      final ProjectBuilderLogger logger = myContext.getLoggingManager().getProjectBuilderLogger();
-      if (logger.isEnabled()) {
-        logger.logCompiledPaths(packedFilePaths, IncArtifactBuilder.BUILDER_NAME, "Packing files:");
+      synchronized (myOutputConsumer) {
+        final ProjectBuilderLogger logger = myContext.getLoggingManager().getProjectBuilderLogger();
+        if (logger.isEnabled()) {
+          logger.logCompiledPaths(packedFilePaths, IncArtifactBuilder.BUILDER_NAME, "Packing files:");
+        }
+        myOutputConsumer.registerOutputFile(new File(targetJarPath), packedFilePaths);
       }
-      myOutputConsumer.registerOutputFile(new File(targetJarPath), packedFilePaths);
 
     }
     finally {
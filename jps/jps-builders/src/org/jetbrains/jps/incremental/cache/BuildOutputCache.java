@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.cache;
+
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.jps.api.GlobalOptions;
+import org.jetbrains.jps.service.JpsServiceManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Stores outputs of module targets by the fingerprint of their inputs, so that a target compiled once (e.g. by another developer or
+ * a CI agent at the same revision) can be restored instead of being compiled again.
+ * <p/>
+ * Custom stores may be registered as services of this class. If there are none, a {@link DirectoryBuildOutputCache} is used when
+ * the {@link GlobalOptions#BUILD_OUTPUT_CACHE_DIR_OPTION} system property is set.
+ *
+ * @see BuildOutputCacheOperations
+ */
+public abstract class BuildOutputCache {
+  private static class Holder {
+    static final BuildOutputCache ourInstance = createInstance();
+  }
+  private static volatile BuildOutputCache ourTestInstance;
+
+  @Nullable
+  public static BuildOutputCache getInstance() {
+    final BuildOutputCache testInstance = ourTestInstance;
+    return testInstance != null ? testInstance : Holder.ourInstance;
+  }
+
+  @TestOnly
+  public static void setTestInstance(@Nullable BuildOutputCache cache) {
+    ourTestInstance = cache;
+  }
+
+  /**
+   * @return local directory with the content previously {@link #put put} for the key, or null if there is no such content
+   */
+  @Nullable
+  public abstract File get(@NotNull String key) throws IOException;
+
+  /**
+   * Stores the content of the directory for the key. The directory is deleted by the caller after this method returns.
+   */
+  public abstract void put(@NotNull String key, @NotNull File contentDir) throws IOException;
+
+  @Nullable
+  private static BuildOutputCache createInstance() {
+    final Iterator<BuildOutputCache> services = JpsServiceManager.getInstance().getExtensions(BuildOutputCache.class).iterator();
+    if (services.hasNext()) {
+      return services.next();
+    }
+    final String path = System.getProperty(GlobalOptions.BUILD_OUTPUT_CACHE_DIR_OPTION);
+    return StringUtil.isEmptyOrSpaces(path) ? null : new DirectoryBuildOutputCache(new File(path));
+  }
+}
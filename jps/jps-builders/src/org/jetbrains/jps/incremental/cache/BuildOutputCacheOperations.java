@@ -0,0 +1,413 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.cache;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.ClassReader;
+import org.jetbrains.jps.ModuleChunk;
+import org.jetbrains.jps.ProjectPaths;
+import org.jetbrains.jps.builders.FileProcessor;
+import org.jetbrains.jps.builders.impl.BuildOutputConsumerImpl;
+import org.jetbrains.jps.builders.java.JavaBuilderUtil;
+import org.jetbrains.jps.builders.java.JavaSourceRootDescriptor;
+import org.jetbrains.jps.builders.java.dependencyView.Callbacks;
+import org.jetbrains.jps.builders.java.dependencyView.Mappings;
+import org.jetbrains.jps.builders.storage.SourceToOutputMapping;
+import org.jetbrains.jps.incremental.*;
+import org.jetbrains.jps.incremental.java.JavaBuilder;
+import org.jetbrains.jps.incremental.messages.ProgressMessage;
+import org.jetbrains.jps.model.JpsDummyElement;
+import org.jetbrains.jps.model.java.JpsJavaExtensionService;
+import org.jetbrains.jps.model.java.JpsJavaSdkType;
+import org.jetbrains.jps.model.java.LanguageLevel;
+import org.jetbrains.jps.model.java.compiler.JpsJavaCompilerConfiguration;
+import org.jetbrains.jps.model.java.compiler.JpsJavaCompilerOptions;
+import org.jetbrains.jps.model.java.compiler.RmicCompilerOptions;
+import org.jetbrains.jps.model.library.sdk.JpsSdk;
+import org.jetbrains.jps.model.module.JpsModule;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Restores outputs of module targets from {@link BuildOutputCache} and stores them there. Only targets which are compiled from scratch
+ * (all java modules are forcibly rebuilt) and contain nothing but java sources compiled without annotation processing are cached.
+ * <p/>
+ * The key of a target is a digest of its configuration, compiler settings, paths and contents of its sources (relative to their
+ * roots), contents of its compilation classpath, and the registered module-level builders (their classes and bytecode), since none
+ * of them runs when the outputs are restored. Classpath entries are the outputs of already built dependency targets, so
+ * the key of a target also depends on the keys of its dependencies.
+ */
+public class BuildOutputCacheOperations {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.cache.BuildOutputCacheOperations");
+  private static final int VERSION = 3;
+  private static final String MANIFEST_FILE = "manifest.dat";
+  private static final String OUTPUTS_DIR = "outputs";
+  private static final String CLASS_EXTENSION = ".class";
+  private static final GlobalContextKey<Map<File, String>> CLASSPATH_ENTRY_DIGESTS = GlobalContextKey.create("_classpath_entry_digests_");
+  private static final GlobalContextKey<String> BUILDERS_DIGEST = GlobalContextKey.create("_module_level_builders_digest_");
+
+  private BuildOutputCacheOperations() {
+  }
+
+  /**
+   * @return inputs of the target if its outputs may be restored from or stored to the cache, null otherwise
+   */
+  @Nullable
+  public static TargetInputs getCacheableInputs(@NotNull CompileContext context, @NotNull ModuleBuildTarget target) throws IOException {
+    if (BuildOutputCache.getInstance() == null ||
+        !JavaBuilderUtil.isForcedRecompilationAllJavaModules(context) ||
+        !JavaBuilder.IS_ENABLED.get(context, Boolean.TRUE)) {
+      return null;
+    }
+    final JpsModule module = target.getModule();
+    final JpsJavaCompilerConfiguration config =
+      JpsJavaExtensionService.getInstance().getOrCreateCompilerConfiguration(context.getProjectDescriptor().getProject());
+    final JpsJavaCompilerOptions rmicOptions = config.getCompilerOptions("Rmic");
+    if (config.getAnnotationProcessingProfile(module).isEnabled() ||
+        rmicOptions instanceof RmicCompilerOptions && ((RmicCompilerOptions)rmicOptions).IS_EANABLED) {
+      return null;
+    }
+
+    final List<JavaSourceRootDescriptor> roots = context.getProjectDescriptor().getBuildRootIndex().getTargetRoots(target, context);
+    final SortedMap<String, File> sources = new TreeMap<String, File>();
+    final boolean[] cacheable = {true};
+    FSOperations.processFilesToRecompile(context, target, new FileProcessor<JavaSourceRootDescriptor, ModuleBuildTarget>() {
+      @Override
+      public boolean apply(ModuleBuildTarget target, File file, JavaSourceRootDescriptor root) throws IOException {
+        final String relativePath = FileUtil.getRelativePath(root.getRootFile(), file);
+        if (root.isTemp || !JavaBuilder.JAVA_SOURCES_FILTER.accept(file) || relativePath == null) {
+          // other builders may keep their own data about the sources
+          cacheable[0] = false;
+          return false;
+        }
+        sources.put(roots.indexOf(root) + "/" + FileUtil.toSystemIndependentName(relativePath), file);
+        return true;
+      }
+    });
+    if (!cacheable[0] || sources.isEmpty()) {
+      return null;
+    }
+
+    // only location independent inputs are used, so that the outputs can be shared between checkouts at different paths
+    final MessageDigest digest = createDigest();
+    update(digest, String.valueOf(VERSION));
+    update(digest, target.getId());
+    update(digest, target.getTargetType().getTypeId());
+    update(digest, getBuildersDigest(context));
+    updateWithCompilerSettings(digest, config, module);
+    update(digest, String.valueOf(context.getProjectDescriptor().getEncodingConfiguration().getPreferredModuleEncoding(module)));
+    for (Map.Entry<String, File> entry : sources.entrySet()) {
+      update(digest, entry.getKey());
+      updateWithContent(digest, entry.getValue());
+    }
+    final ModuleChunk chunk = new ModuleChunk(Collections.singleton(target));
+    final Collection<File> outputRoots = target.getOutputRoots(context);
+    for (File file : ProjectPaths.getPlatformCompilationClasspath(chunk, false)) {
+      update(digest, getClasspathEntryDigest(context, file));
+    }
+    for (File file : ProjectPaths.getCompilationClasspath(chunk, false)) {
+      if (!outputRoots.contains(file)) {
+        update(digest, getClasspathEntryDigest(context, file));
+      }
+    }
+    return new TargetInputs(toString(digest), sources);
+  }
+
+  /**
+   * Copies cached outputs of the target to its output directory and registers them in source-to-output mappings and
+   * in the dependency mappings, as if they were just compiled.
+   *
+   * @return true if the outputs were restored, false if there is nothing in the cache for the target inputs
+   */
+  public static boolean restoreOutputs(@NotNull CompileContext context, @NotNull ModuleBuildTarget target, @NotNull TargetInputs inputs) {
+    final BuildOutputCache cache = BuildOutputCache.getInstance();
+    final File outputDir = target.getOutputDir();
+    if (cache == null || outputDir == null) {
+      return false;
+    }
+    final List<File> restored = new ArrayList<File>();
+    try {
+      final File cachedDir = cache.get(inputs.getKey());
+      if (cachedDir == null) {
+        return false;
+      }
+      context.processMessage(new ProgressMessage("Restoring compiled classes from cache... [" + target.getPresentableName() + "]"));
+      final Map<File, List<File>> sourceToOutputs = new LinkedHashMap<File, List<File>>();
+      final DataInputStream manifest = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(cachedDir, MANIFEST_FILE))));
+      try {
+        for (int sourceCount = manifest.readInt(); sourceCount > 0; sourceCount--) {
+          final File source = inputs.getSources().get(manifest.readUTF());
+          if (source == null) {
+            LOG.info("Cached outputs of " + target.getPresentableName() + " don't match its sources");
+            return false;
+          }
+          final List<File> outputs = new ArrayList<File>();
+          for (int outputCount = manifest.readInt(); outputCount > 0; outputCount--) {
+            final String relativePath = manifest.readUTF();
+            final File output = new File(outputDir, relativePath);
+            FileUtil.copy(new File(cachedDir, OUTPUTS_DIR + "/" + relativePath), output);
+            restored.add(output);
+            outputs.add(output);
+          }
+          sourceToOutputs.put(source, outputs);
+        }
+      }
+      finally {
+        manifest.close();
+      }
+
+      final BuildOutputConsumerImpl outputConsumer = new BuildOutputConsumerImpl(target, context);
+      final Mappings globalMappings = context.getProjectDescriptor().dataManager.getMappings();
+      final Mappings delta = globalMappings.createDelta();
+      final Callbacks.Backend callback = delta.getCallback();
+      for (Map.Entry<File, List<File>> entry : sourceToOutputs.entrySet()) {
+        final String sourcePath = entry.getKey().getPath();
+        for (File output : entry.getValue()) {
+          outputConsumer.registerOutputFile(output, Collections.singleton(sourcePath));
+          if (output.getName().endsWith(CLASS_EXTENSION)) {
+            final ClassReader reader = new ClassReader(FileUtil.loadFileBytes(output));
+            callback.associate(FileUtil.toSystemIndependentName(output.getPath()), FileUtil.toSystemIndependentName(sourcePath), reader);
+          }
+        }
+      }
+      globalMappings.differentiateOnRebuild(delta);
+      globalMappings.integrate(delta);
+      outputConsumer.fireFileGeneratedEvent();
+      LOG.info("Outputs of " + target.getPresentableName() + " restored from cache: " + restored.size() + " files");
+      restored.clear();
+      return true;
+    }
+    catch (Exception e) {
+      LOG.info("Cannot restore outputs of " + target.getPresentableName() + " from cache", e);
+      return false;
+    }
+    finally {
+      // the target will be compiled, don't leave partially restored outputs
+      for (File file : restored) {
+        FileUtil.delete(file);
+      }
+    }
+  }
+
+  /**
+   * Puts outputs of the successfully compiled target to the cache.
+   */
+  public static void storeOutputs(@NotNull CompileContext context, @NotNull ModuleBuildTarget target, @NotNull TargetInputs inputs) {
+    final BuildOutputCache cache = BuildOutputCache.getInstance();
+    final File outputDir = target.getOutputDir();
+    if (cache == null || outputDir == null || Utils.errorsDetected(context) || context.getCancelStatus().isCanceled()) {
+      return;
+    }
+    File contentDir = null;
+    try {
+      contentDir = FileUtil.createTempDirectory("build-output-cache", null, false);
+      final SourceToOutputMapping mapping = context.getProjectDescriptor().dataManager.getSourceToOutputMap(target);
+      final DataOutputStream manifest =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(contentDir, MANIFEST_FILE))));
+      try {
+        manifest.writeInt(inputs.getSources().size());
+        for (Map.Entry<String, File> entry : inputs.getSources().entrySet()) {
+          manifest.writeUTF(entry.getKey());
+          final Collection<String> outputs = mapping.getOutputs(entry.getValue().getPath());
+          manifest.writeInt(outputs != null ? outputs.size() : 0);
+          if (outputs != null) {
+            for (String outputPath : outputs) {
+              final File output = new File(outputPath);
+              final String relativePath = FileUtil.getRelativePath(outputDir, output);
+              if (relativePath == null || relativePath.startsWith("..") || !output.isFile()) {
+                LOG.info("Outputs of " + target.getPresentableName() + " are not cached: unexpected output " + outputPath);
+                return;
+              }
+              manifest.writeUTF(FileUtil.toSystemIndependentName(relativePath));
+              FileUtil.copy(output, new File(contentDir, OUTPUTS_DIR + "/" + relativePath));
+            }
+          }
+        }
+      }
+      finally {
+        manifest.close();
+      }
+      cache.put(inputs.getKey(), contentDir);
+    }
+    catch (IOException e) {
+      LOG.info("Cannot store outputs of " + target.getPresentableName() + " to cache", e);
+    }
+    finally {
+      if (contentDir != null) {
+        FileUtil.delete(contentDir);
+      }
+    }
+  }
+
+  private static void updateWithCompilerSettings(MessageDigest digest, JpsJavaCompilerConfiguration config, JpsModule module) {
+    update(digest, System.getProperty("java.version")); // in-process javac
+    update(digest, config.getJavaCompilerId());
+    update(digest, String.valueOf(config.isAddNotNullAssertions()));
+    update(digest, String.valueOf(config.getByteCodeTargetLevel(module.getName())));
+    final LanguageLevel level = JpsJavaExtensionService.getInstance().getLanguageLevel(module);
+    update(digest, level != null ? level.name() : "");
+    final JpsJavaCompilerOptions options = config.getCurrentCompilerOptions();
+    update(digest, options.DEBUGGING_INFO + " " + options.GENERATE_NO_WARNINGS + " " + options.DEPRECATION + " " + options.ADDITIONAL_OPTIONS_STRING);
+    final JpsSdk<JpsDummyElement> sdk = module.getSdk(JpsJavaSdkType.INSTANCE);
+    update(digest, sdk != null ? String.valueOf(sdk.getVersionString()) : "");
+  }
+
+  @NotNull
+  private static String getBuildersDigest(CompileContext context) throws IOException {
+    String result = BUILDERS_DIGEST.get(context);
+    if (result == null) {
+      result = getBuildersDigest(BuilderRegistry.getInstance().getModuleLevelBuilders());
+      BUILDERS_DIGEST.set(context, result);
+    }
+    return result;
+  }
+
+  /**
+   * Instrumenters and post-processors of plugins change the compiled classes, so the outputs stored with another set of builders
+   * or another version of them must not be restored.
+   */
+  @NotNull
+  static String getBuildersDigest(@NotNull Collection<? extends ModuleLevelBuilder> builders) throws IOException {
+    final MessageDigest digest = createDigest();
+    for (ModuleLevelBuilder builder : builders) {
+      final Class<?> builderClass = builder.getClass();
+      update(digest, builder.getCategory().name() + " " + builderClass.getName());
+      // builders don't declare versions, the bytecode of the builder class stands for it
+      final InputStream classBytes = builderClass.getResourceAsStream("/" + builderClass.getName().replace('.', '/') + CLASS_EXTENSION);
+      if (classBytes != null) {
+        updateWithContent(digest, classBytes);
+      }
+    }
+    return toString(digest);
+  }
+
+  @NotNull
+  private static String getClasspathEntryDigest(CompileContext context, File file) throws IOException {
+    Map<File, String> digests = CLASSPATH_ENTRY_DIGESTS.get(context);
+    if (digests == null) {
+      synchronized (CLASSPATH_ENTRY_DIGESTS) {
+        digests = CLASSPATH_ENTRY_DIGESTS.get(context);
+        if (digests == null) {
+          digests = new ConcurrentHashMap<File, String>();
+          CLASSPATH_ENTRY_DIGESTS.set(context, digests);
+        }
+      }
+    }
+    String result = digests.get(file);
+    if (result == null) {
+      // dependency targets are already built at this moment, so their outputs won't change during the build
+      final MessageDigest digest = createDigest();
+      if (file.isDirectory()) {
+        updateWithClassFiles(digest, file, "");
+      }
+      else if (file.isFile()) {
+        updateWithContent(digest, file);
+      }
+      result = toString(digest);
+      digests.put(file, result);
+    }
+    return result;
+  }
+
+  private static void updateWithClassFiles(MessageDigest digest, File dir, String relativePath) throws IOException {
+    final File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children);
+    for (File child : children) {
+      final String childPath = relativePath + "/" + child.getName();
+      if (child.isDirectory()) {
+        updateWithClassFiles(digest, child, childPath);
+      }
+      else if (child.getName().endsWith(CLASS_EXTENSION)) {
+        update(digest, childPath);
+        updateWithContent(digest, child);
+      }
+    }
+  }
+
+  private static void updateWithContent(MessageDigest digest, File file) throws IOException {
+    updateWithContent(digest, new FileInputStream(file));
+  }
+
+  private static void updateWithContent(MessageDigest digest, InputStream stream) throws IOException {
+    final InputStream input = new DigestInputStream(stream, digest);
+    try {
+      final byte[] buffer = new byte[8192];
+      //noinspection StatementWithEmptyBody
+      while (input.read(buffer) >= 0) ;
+    }
+    finally {
+      input.close();
+    }
+  }
+
+  private static void update(MessageDigest digest, String s) {
+    try {
+      digest.update(s.getBytes("UTF-8"));
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+    digest.update((byte)0);
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String toString(MessageDigest digest) {
+    return new BigInteger(1, digest.digest()).toString(16);
+  }
+
+  public static class TargetInputs {
+    private final String myKey;
+    private final Map<String, File> mySources;
+
+    private TargetInputs(String key, Map<String, File> sources) {
+      myKey = key;
+      mySources = sources;
+    }
+
+    @NotNull
+    public String getKey() {
+      return myKey;
+    }
+
+    /**
+     * @return source files of the target by their paths relative to the source roots
+     */
+    @NotNull
+    public Map<String, File> getSources() {
+      return mySources;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.cache;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Keeps the content of each key in a subdirectory of the root. The root may be located on a shared file system: the content is
+ * copied to a temporary directory first and then renamed, so readers never see partially written entries.
+ */
+public class DirectoryBuildOutputCache extends BuildOutputCache {
+  private static final String TEMP_SUFFIX = ".tmp";
+  private final File myRoot;
+
+  public DirectoryBuildOutputCache(@NotNull File root) {
+    myRoot = root;
+  }
+
+  @Nullable
+  @Override
+  public File get(@NotNull String key) {
+    final File dir = new File(myRoot, key);
+    return dir.isDirectory() ? dir : null;
+  }
+
+  @Override
+  public void put(@NotNull String key, @NotNull File contentDir) throws IOException {
+    final File dir = new File(myRoot, key);
+    if (dir.exists()) {
+      return;
+    }
+    final File tempDir = new File(myRoot, key + "." + Long.toHexString(System.nanoTime()) + TEMP_SUFFIX);
+    try {
+      FileUtil.copyDir(contentDir, tempDir);
+      // may fail if the same content has been stored concurrently
+      tempDir.renameTo(dir);
+    }
+    finally {
+      FileUtil.delete(tempDir);
+    }
+  }
+}
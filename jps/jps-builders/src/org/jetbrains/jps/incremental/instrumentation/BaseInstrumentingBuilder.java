@@ -19,6 +19,7 @@ import com.intellij.compiler.instrumentation.InstrumentationClassFinder;
 import com.intellij.compiler.instrumentation.InstrumenterClassWriter;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.Key;
+import com.intellij.util.concurrency.BoundedTaskExecutor;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.asm4.ClassReader;
 import org.jetbrains.asm4.ClassWriter;
@@ -27,8 +28,16 @@ import org.jetbrains.jps.incremental.BinaryContent;
 import org.jetbrains.jps.incremental.BuilderCategory;
 import org.jetbrains.jps.incremental.CompileContext;
 import org.jetbrains.jps.incremental.CompiledClass;
+import org.jetbrains.jps.incremental.IncProjectBuilder;
 import org.jetbrains.jps.incremental.messages.BuildMessage;
 import org.jetbrains.jps.incremental.messages.CompilerMessage;
+import org.jetbrains.jps.service.SharedThreadPool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Eugene Zhuravlev
@@ -38,44 +47,91 @@ public abstract class BaseInstrumentingBuilder extends ClassProcessingBuilder {
   private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.instrumentation.BaseInstrumentingBuilder");
   // every instance of builder must have its own marker!
   private final Key<Boolean> IS_INSTRUMENTED_KEY = Key.create("_instrumentation_marker_" + getPresentableName());
+  private static final int MIN_CLASSES_TO_INSTRUMENT_CONCURRENTLY = 16;
+  private static final Executor ourInstrumentationExecutor =
+    new BoundedTaskExecutor(SharedThreadPool.getInstance(), Math.min(IncProjectBuilder.MAX_BUILDER_THREADS, Math.max(2, Runtime.getRuntime().availableProcessors())));
 
   public BaseInstrumentingBuilder() {
     super(BuilderCategory.CLASS_INSTRUMENTER);
   }
 
   @Override
-  protected final ExitCode performBuild(CompileContext context, ModuleChunk chunk, InstrumentationClassFinder finder, OutputConsumer outputConsumer) {
-    ExitCode exitCode = ExitCode.NOTHING_DONE;
-    for (CompiledClass compiledClass : outputConsumer.getCompiledClasses().values()) {
-      final BinaryContent originalContent = compiledClass.getContent();
-      final ClassReader reader = new ClassReader(originalContent.getBuffer(), originalContent.getOffset(), originalContent.getLength());
-      final int version = getClassFileVersion(reader);
-      if (IS_INSTRUMENTED_KEY.get(compiledClass, Boolean.FALSE) || !canInstrument(compiledClass, version)) {
-        // do not instrument the same content twice
-        continue;
-      }
-      final ClassWriter writer = new InstrumenterClassWriter(getAsmClassWriterFlags(version), finder);
-      try {
-        final BinaryContent instrumented = instrument(context, compiledClass, reader, writer, finder);
-        if (instrumented != null) {
-          compiledClass.setContent(instrumented);
-          finder.cleanCachedData(compiledClass.getClassName());
-          IS_INSTRUMENTED_KEY.set(compiledClass, Boolean.TRUE);
+  protected final ExitCode performBuild(final CompileContext context, ModuleChunk chunk, final InstrumentationClassFinder finder, OutputConsumer outputConsumer) {
+    final Collection<CompiledClass> compiledClasses = outputConsumer.getCompiledClasses().values();
+    if (!canInstrumentConcurrently() || compiledClasses.size() < MIN_CLASSES_TO_INSTRUMENT_CONCURRENTLY) {
+      ExitCode exitCode = ExitCode.NOTHING_DONE;
+      for (CompiledClass compiledClass : compiledClasses) {
+        if (instrumentClass(context, compiledClass, finder)) {
           exitCode = ExitCode.OK;
         }
       }
-      catch (Throwable e) {
-        LOG.info(e);
-        final String message = e.getMessage();
-        if (message != null) {
-          context.processMessage(new CompilerMessage(getPresentableName(), BuildMessage.Kind.ERROR, message, compiledClass.getSourceFile().getPath()));
-        }
-        else {
-          context.processMessage(new CompilerMessage(getPresentableName(), e));
+      return exitCode;
+    }
+
+    final AtomicBoolean instrumentedAny = new AtomicBoolean(false);
+    final List<Future<?>> futures = new ArrayList<Future<?>>(compiledClasses.size());
+    for (final CompiledClass compiledClass : compiledClasses) {
+      final FutureTask<Void> future = new FutureTask<Void>(new Runnable() {
+        @Override
+        public void run() {
+          if (instrumentClass(context, compiledClass, finder)) {
+            instrumentedAny.set(true);
+          }
         }
+      }, null);
+      futures.add(future);
+      ourInstrumentationExecutor.execute(future);
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      }
+      catch (InterruptedException e) {
+        LOG.info(e);
+      }
+      catch (ExecutionException e) {
+        LOG.error(e);
+      }
+    }
+    return instrumentedAny.get() ? ExitCode.OK : ExitCode.NOTHING_DONE;
+  }
+
+  private boolean instrumentClass(CompileContext context, CompiledClass compiledClass, InstrumentationClassFinder finder) {
+    final BinaryContent originalContent = compiledClass.getContent();
+    final ClassReader reader = new ClassReader(originalContent.getBuffer(), originalContent.getOffset(), originalContent.getLength());
+    final int version = getClassFileVersion(reader);
+    if (IS_INSTRUMENTED_KEY.get(compiledClass, Boolean.FALSE) || !canInstrument(compiledClass, version)) {
+      // do not instrument the same content twice
+      return false;
+    }
+    final ClassWriter writer = new InstrumenterClassWriter(getAsmClassWriterFlags(version), finder);
+    try {
+      final BinaryContent instrumented = instrument(context, compiledClass, reader, writer, finder);
+      if (instrumented != null) {
+        compiledClass.setContent(instrumented);
+        finder.cleanCachedData(compiledClass.getClassName());
+        IS_INSTRUMENTED_KEY.set(compiledClass, Boolean.TRUE);
+        return true;
       }
     }
-    return exitCode;
+    catch (Throwable e) {
+      LOG.info(e);
+      final String message = e.getMessage();
+      if (message != null) {
+        context.processMessage(new CompilerMessage(getPresentableName(), BuildMessage.Kind.ERROR, message, compiledClass.getSourceFile().getPath()));
+      }
+      else {
+        context.processMessage(new CompilerMessage(getPresentableName(), e));
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if {@link #instrument} may be called for different classes of a chunk at the same time
+   */
+  protected boolean canInstrumentConcurrently() {
+    return false;
   }
 
   protected abstract boolean canInstrument(CompiledClass compiledClass, int classFileVersion);
@@ -64,6 +64,11 @@ public class NotNullInstrumentingBuilder extends BaseInstrumentingBuilder{
     return classFileVersion >= Opcodes.V1_5;
   }
 
+  @Override
+  protected boolean canInstrumentConcurrently() {
+    return true;
+  }
+
   // todo: probably instrument other NotNull-like annotations defined in project settings?
   @Override
   @Nullable
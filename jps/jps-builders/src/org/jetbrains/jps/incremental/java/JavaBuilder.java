@@ -24,6 +24,7 @@ import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.SystemProperties;
+import com.intellij.util.concurrency.BoundedTaskExecutor;
 import com.intellij.util.concurrency.SequentialTaskExecutor;
 import gnu.trove.THashMap;
 import gnu.trove.THashSet;
@@ -102,6 +103,7 @@ public class JavaBuilder extends ModuleLevelBuilder {
     };
 
   private final Executor myTaskRunner;
+  private final Executor myOutputWriter;
   private static final List<ClassPostProcessor> ourClassProcessors = new ArrayList<ClassPostProcessor>();
   private static final Set<JpsModuleType<?>> ourCompilableModuleTypes;
   static {
@@ -118,6 +120,8 @@ public class JavaBuilder extends ModuleLevelBuilder {
   public JavaBuilder(Executor tasksExecutor) {
     super(BuilderCategory.TRANSLATOR);
     myTaskRunner = new SequentialTaskExecutor(tasksExecutor);
+    // class files are written to disk concurrently, while their registration in mappings stays sequential
+    myOutputWriter = new BoundedTaskExecutor(tasksExecutor, Math.min(IncProjectBuilder.MAX_BUILDER_THREADS, Math.max(2, Runtime.getRuntime().availableProcessors())));
     //add here class processors in the sequence they should be executed
   }
 
@@ -234,7 +238,11 @@ public class JavaBuilder extends ModuleLevelBuilder {
     // begin compilation round
     final Mappings delta = pd.dataManager.getMappings().createDelta();
     final Callbacks.Backend mappingsCallback = delta.getCallback();
-    final OutputFilesSink outputSink = new OutputFilesSink(context, outputConsumer, mappingsCallback, chunk.getName());
+    final OutputFilesSink outputSink = new OutputFilesSink(context, outputConsumer, mappingsCallback, chunk.getName(), new Executor() {
+      public void execute(Runnable command) {
+        submitAsyncTask(context, myOutputWriter, command);
+      }
+    });
     try {
       if (hasSourcesToCompile) {
         final AtomicReference<String> ref = COMPILER_VERSION_INFO.get(context);
@@ -274,10 +282,15 @@ public class JavaBuilder extends ModuleLevelBuilder {
               LOG.debug("  " + file.getAbsolutePath());
             }
           }
+          final long compileStart = System.currentTimeMillis();
+          final Runnable compileTrace = BuildTrace.startActivity(context, BuildTrace.COMPILER_CATEGORY, "javac", chunk.getTargets().toString());
           try {
             compiledOk = compileJava(context, chunk, files, classpath, platformCp, srcPath, diagnosticSink, outputSink);
           }
           finally {
+            compileTrace.run();
+            LOG.info("Module " + chunkName + ": " + outputSink.getSavedClassesCount() + " classes (" + outputSink.getSavedBytesCount() / 1024 +
+                     " KB) compiled and written in " + (System.currentTimeMillis() - compileStart) + " ms");
             // heuristic: incorrect paths data recovery, so that the next make should not contain non-existing sources in 'recompile' list
             for (File file : diagnosticSink.getFilesWithErrors()) {
               if (!file.exists()) {
@@ -303,8 +316,15 @@ public class JavaBuilder extends ModuleLevelBuilder {
       }
     }
     finally {
-      if (JavaBuilderUtil.updateMappings(context, delta, dirtyFilesHolder, chunk, files, outputSink.getSuccessfullyCompiled())) {
-        exitCode = ExitCode.ADDITIONAL_PASS_REQUIRED;
+      final Runnable mappingsTrace = BuildTrace.startActivity(context, BuildTrace.DEPENDENCY_ANALYSIS_CATEGORY, "update mappings",
+                                                                chunk.getTargets().toString());
+      try {
+        if (JavaBuilderUtil.updateMappings(context, delta, dirtyFilesHolder, chunk, files, outputSink.getSuccessfullyCompiled())) {
+          exitCode = ExitCode.ADDITIONAL_PASS_REQUIRED;
+        }
+      }
+      finally {
+        mappingsTrace.run();
       }
     }
 
@@ -403,12 +423,16 @@ public class JavaBuilder extends ModuleLevelBuilder {
   }
 
   private void submitAsyncTask(final CompileContext context, final Runnable taskRunnable) {
+    submitAsyncTask(context, myTaskRunner, taskRunnable);
+  }
+
+  private static void submitAsyncTask(final CompileContext context, final Executor executor, final Runnable taskRunnable) {
     final TasksCounter counter = COUNTER_KEY.get(context);
 
     assert counter != null;
 
     counter.incTaskCount();
-    myTaskRunner.execute(new Runnable() {
+    executor.execute(new Runnable() {
       public void run() {
         try {
           taskRunnable.run();
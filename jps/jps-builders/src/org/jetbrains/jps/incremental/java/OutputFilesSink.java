@@ -34,6 +34,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
 * @author Eugene Zhuravlev
@@ -45,16 +48,25 @@ class OutputFilesSink implements OutputFileConsumer {
   private final ModuleLevelBuilder.OutputConsumer myOutputConsumer;
   private final Callbacks.Backend myMappingsCallback;
   private final String myChunkName;
-  private final Set<File> mySuccessfullyCompiled = new THashSet<File>(FileUtil.FILE_HASHING_STRATEGY);
+  private final Executor myWriteExecutor;
+  private final Set<File> mySuccessfullyCompiled = Collections.synchronizedSet(new THashSet<File>(FileUtil.FILE_HASHING_STRATEGY));
+  private final AtomicInteger mySavedClassesCount = new AtomicInteger();
+  private final AtomicLong mySavedBytesCount = new AtomicLong();
 
+  /**
+   * @param writeExecutor executor used to write class files to disk; callers must wait for its tasks to complete before
+   *                      querying {@link #getSuccessfullyCompiled()}
+   */
   public OutputFilesSink(CompileContext context,
                          ModuleLevelBuilder.OutputConsumer outputConsumer,
                          Callbacks.Backend callback,
-                         String chunkName) {
+                         String chunkName,
+                         Executor writeExecutor) {
     myContext = context;
     myOutputConsumer = outputConsumer;
     myMappingsCallback = callback;
     myChunkName = "[" +chunkName + "]";
+    myWriteExecutor = writeExecutor;
   }
 
   public void save(final @NotNull OutputFileObject fileObject) {
@@ -72,7 +84,7 @@ class OutputFilesSink implements OutputFileConsumer {
           // first, handle [src->output] mapping and register paths for files_generated event
           try {
             if (outKind == JavaFileObject.Kind.CLASS) {
-              myOutputConsumer.registerCompiledClass(rootDescriptor.target, new CompiledClass(fileObject.getFile(), srcFile, fileObject.getClassName(), content)); // todo: avoid array copying?
+              myOutputConsumer.registerCompiledClass(rootDescriptor.target, new CompiledClass(fileObject.getFile(), srcFile, fileObject.getClassName(), content)); // the content is shared, not copied
             }
             else {
               myOutputConsumer.registerOutputFile(rootDescriptor.target, fileObject.getFile(), Collections.<String>singleton(sourcePath));
@@ -102,13 +114,22 @@ class OutputFilesSink implements OutputFileConsumer {
     }
 
     if (outKind == JavaFileObject.Kind.CLASS) {
-      // generated sources and resources are handled separately
-      try {
-        writeToDisk(fileObject, isTemp);
-      }
-      catch (IOException e) {
-        myContext.processMessage(new CompilerMessage(JavaBuilder.BUILDER_NAME, BuildMessage.Kind.ERROR, e.getMessage()));
+      if (content != null) {
+        mySavedClassesCount.incrementAndGet();
+        mySavedBytesCount.addAndGet(content.getLength());
       }
+      // generated sources and resources are handled separately
+      final boolean _isTemp = isTemp;
+      myWriteExecutor.execute(new Runnable() {
+        public void run() {
+          try {
+            writeToDisk(fileObject, _isTemp);
+          }
+          catch (IOException e) {
+            myContext.processMessage(new CompilerMessage(JavaBuilder.BUILDER_NAME, BuildMessage.Kind.ERROR, e.getMessage()));
+          }
+        }
+      });
     }
   }
 
@@ -137,6 +158,14 @@ class OutputFilesSink implements OutputFileConsumer {
     }
   }
 
+  public int getSavedClassesCount() {
+    return mySavedClassesCount.get();
+  }
+
+  public long getSavedBytesCount() {
+    return mySavedBytesCount.get();
+  }
+
   public void markError(@NotNull final File sourceFile) {
     mySuccessfullyCompiled.remove(sourceFile);
   }
@@ -15,26 +15,38 @@
  */
 package org.jetbrains.jps.incremental.storage;
 
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.io.DataExternalizer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.api.GlobalOptions;
 import org.jetbrains.jps.builders.BuildTarget;
 
-import java.io.DataInput;
-import java.io.DataOutput;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * @author Eugene Zhuravlev
  *         Date: 10/7/11
  */
 public class TimestampStorage extends AbstractStateStorage<File, TimestampStorage.TimestampPerTarget[]> implements Timestamps {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.incremental.storage.TimestampStorage");
+  public static final boolean USE_CONTENT_HASHES = Boolean.parseBoolean(System.getProperty(GlobalOptions.USE_CONTENT_HASHES_OPTION, "false"));
   private final BuildTargetsState myTargetsState;
+  private final boolean myUseContentHashes;
 
   public TimestampStorage(File storePath, BuildTargetsState targetsState) throws IOException {
+    this(storePath, targetsState, USE_CONTENT_HASHES);
+  }
+
+  public TimestampStorage(File storePath, BuildTargetsState targetsState, boolean useContentHashes) throws IOException {
     super(storePath, new FileKeyDescriptor(), new StateExternalizer());
     myTargetsState = targetsState;
+    myUseContentHashes = useContentHashes;
   }
 
   @Override
@@ -61,15 +73,84 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampStorag
     return -1L;
   }
 
+  @Override
+  public boolean isUpToDate(File file, BuildTarget<?> target, long currentStamp) throws IOException {
+    final TimestampPerTarget[] state = getState(file);
+    if (state == null) {
+      return false;
+    }
+    final int targetId = myTargetsState.getBuildTargetId(target);
+    for (TimestampPerTarget timestampPerTarget : state) {
+      if (timestampPerTarget.targetId == targetId) {
+        if (timestampPerTarget.timestamp == currentStamp) {
+          return true;
+        }
+        if (!myUseContentHashes || timestampPerTarget.hash == null || !Arrays.equals(timestampPerTarget.hash, computeHash(file))) {
+          return false;
+        }
+        // touched but not modified: remember the new timestamp to avoid hashing the file again
+        update(file, updateTimestamp(state, targetId, currentStamp, timestampPerTarget.hash));
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public void saveStamp(File file, BuildTarget<?> buildTarget, long timestamp) throws IOException {
     int targetId = myTargetsState.getBuildTargetId(buildTarget);
-    update(file, updateTimestamp(getState(file), targetId, timestamp));
+    final TimestampPerTarget[] state = getState(file);
+    update(file, updateTimestamp(state, targetId, timestamp, myUseContentHashes ? getHash(file, state, timestamp) : null));
+  }
+
+  @Nullable
+  private static byte[] getHash(File file, @Nullable TimestampPerTarget[] state, long timestamp) {
+    if (state != null) {
+      // the file may belong to several targets, its content is the same if the timestamp is
+      for (TimestampPerTarget timestampPerTarget : state) {
+        if (timestampPerTarget.timestamp == timestamp && timestampPerTarget.hash != null) {
+          return timestampPerTarget.hash;
+        }
+      }
+    }
+    return computeHash(file);
+  }
+
+  /**
+   * @return MD5 digest of the file content, or null if the file cannot be read
+   */
+  @Nullable
+  private static byte[] computeHash(File file) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    }
+    catch (NoSuchAlgorithmException e) {
+      LOG.error(e);
+      return null;
+    }
+    try {
+      final InputStream input = new DigestInputStream(new FileInputStream(file), digest);
+      try {
+        final byte[] buffer = new byte[8192];
+        //noinspection StatementWithEmptyBody
+        while (input.read(buffer) >= 0) ;
+      }
+      finally {
+        input.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+      return null;
+    }
+    return digest.digest();
   }
 
   @NotNull
-  private static TimestampPerTarget[] updateTimestamp(TimestampPerTarget[] oldState, final int targetId, long timestamp) {
-    final TimestampPerTarget newItem = new TimestampPerTarget(targetId, timestamp);
+  private static TimestampPerTarget[] updateTimestamp(TimestampPerTarget[] oldState, final int targetId, long timestamp,
+                                                      @Nullable byte[] hash) {
+    final TimestampPerTarget newItem = new TimestampPerTarget(targetId, timestamp, hash);
     if (oldState == null) {
       return new TimestampPerTarget[]{newItem};
     }
@@ -105,10 +186,12 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampStorag
   public static class TimestampPerTarget {
     public final int targetId;
     public final long timestamp;
+    @Nullable public final byte[] hash;
 
-    public TimestampPerTarget(int targetId, long timestamp) {
+    public TimestampPerTarget(int targetId, long timestamp, @Nullable byte[] hash) {
       this.targetId = targetId;
       this.timestamp = timestamp;
+      this.hash = hash;
     }
   }
 
@@ -118,6 +201,13 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampStorag
       for (TimestampPerTarget target : value) {
         out.writeInt(target.targetId);
         out.writeLong(target.timestamp);
+        if (target.hash != null) {
+          out.writeInt(target.hash.length);
+          out.write(target.hash);
+        }
+        else {
+          out.writeInt(0);
+        }
       }
     }
 
@@ -127,7 +217,13 @@ public class TimestampStorage extends AbstractStateStorage<File, TimestampStorag
       for (int i = 0; i < size; i++) {
         int id = in.readInt();
         long timestamp = in.readLong();
-        targets[i] = new TimestampPerTarget(id, timestamp);
+        int hashLength = in.readInt();
+        byte[] hash = null;
+        if (hashLength > 0) {
+          hash = new byte[hashLength];
+          in.readFully(hash);
+        }
+        targets[i] = new TimestampPerTarget(id, timestamp, hash);
       }
       return targets;
     }
@@ -34,4 +34,10 @@ public interface Timestamps {
   void clean() throws IOException;
 
   long getStamp(File file, BuildTarget<?> target) throws IOException;
+
+  /**
+   * @return true if the file wasn't changed since its stamp was saved for the target. If content hashes are enabled, a file with
+   * a different timestamp but the same content is considered up to date too, and its saved stamp is updated to {@code currentStamp}
+   */
+  boolean isUpToDate(File file, BuildTarget<?> target, long currentStamp) throws IOException;
 }
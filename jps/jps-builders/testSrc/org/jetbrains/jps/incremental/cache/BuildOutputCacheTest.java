@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.cache;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.PathUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.ModuleChunk;
+import org.jetbrains.jps.builders.DirtyFilesHolder;
+import org.jetbrains.jps.builders.JpsBuildTestCase;
+import org.jetbrains.jps.builders.java.JavaSourceRootDescriptor;
+import org.jetbrains.jps.incremental.*;
+import org.jetbrains.jps.incremental.java.JavaBuilder;
+import org.jetbrains.jps.model.java.JpsJavaExtensionService;
+import org.jetbrains.jps.model.java.compiler.JpsJavaCompilerConfiguration;
+import org.jetbrains.jps.model.module.JpsModule;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.intellij.util.io.TestFileSystemItem.fs;
+
+public class BuildOutputCacheTest extends JpsBuildTestCase {
+  private CountingBuildOutputCache myCache;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCache = new CountingBuildOutputCache(FileUtil.createTempDirectory("build-output-cache", null));
+    BuildOutputCache.setTestInstance(myCache);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    BuildOutputCache.setTestInstance(null);
+    super.tearDown();
+  }
+
+  public void testRestoreOutputsOnSecondRebuild() {
+    String a = createFile("src/A.java", "class A { public void foo() {} }");
+    createFile("src/B.java", "class B { void b(A a) { a.foo(); } }");
+    JpsModule m = addModule("m", PathUtil.getParentPath(a));
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "src/A.java", "src/B.java");
+    assertCacheAccess(0, 1);
+
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME);
+    assertCacheAccess(1, 1);
+    assertOutput(m, fs().file("A.class").file("B.class"));
+    makeAll().assertUpToDate();
+
+    // dependency mappings are restored as well, so the usage of the changed method is recompiled
+    change(a, "class A { public int foo() { return 0; } }");
+    makeAll().assertSuccessful();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "src/A.java", "src/B.java");
+  }
+
+  public void testChangedSource() {
+    String a = createFile("src/A.java", "class A {}");
+    addModule("m", PathUtil.getParentPath(a));
+    rebuildAll();
+    change(a, "class A { int a; }");
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "src/A.java");
+    assertCacheAccess(0, 2);
+  }
+
+  public void testChangedClasspath() {
+    String a = createFile("a/A.java", "public class A { public static final int VALUE = 1; }");
+    String b = createFile("b/B.java", "class B { int b = A.VALUE; }");
+    JpsModule moduleA = addModule("a", PathUtil.getParentPath(a));
+    JpsModule moduleB = addModule("b", PathUtil.getParentPath(b));
+    moduleB.getDependenciesList().addModuleDependency(moduleA);
+    rebuildAll();
+    assertCacheAccess(0, 2);
+
+    change(a, "public class A { public static final int VALUE = 2; }");
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "a/A.java", "b/B.java");
+    assertCacheAccess(0, 4);
+  }
+
+  public void testChangedCompilerOptions() {
+    String a = createFile("src/A.java", "class A {}");
+    addModule("m", PathUtil.getParentPath(a));
+    rebuildAll();
+    getCompilerConfiguration().getCurrentCompilerOptions().DEBUGGING_INFO = false;
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "src/A.java");
+    assertCacheAccess(0, 2);
+  }
+
+  public void testNotCachedWithAnnotationProcessing() {
+    String a = createFile("src/A.java", "class A {}");
+    addModule("m", PathUtil.getParentPath(a));
+    getCompilerConfiguration().getDefaultAnnotationProcessingProfile().setEnabled(true);
+    rebuildAll();
+    rebuildAll();
+    assertCompiled(JavaBuilder.BUILDER_NAME, "src/A.java");
+    assertCacheAccess(0, 0);
+  }
+
+  public void testExtraInstrumentingBuilder() throws IOException {
+    List<ModuleLevelBuilder> builders = BuilderRegistry.getInstance().getModuleLevelBuilders();
+    String digest = BuildOutputCacheOperations.getBuildersDigest(builders);
+    assertEquals(digest, BuildOutputCacheOperations.getBuildersDigest(BuilderRegistry.getInstance().getModuleLevelBuilders()));
+
+    List<ModuleLevelBuilder> withInstrumenter = new ArrayList<ModuleLevelBuilder>(builders);
+    withInstrumenter.add(new TestInstrumentingBuilder());
+    assertFalse(digest.equals(BuildOutputCacheOperations.getBuildersDigest(withInstrumenter)));
+  }
+
+  private JpsJavaCompilerConfiguration getCompilerConfiguration() {
+    return JpsJavaExtensionService.getInstance().getOrCreateCompilerConfiguration(myProject);
+  }
+
+  private void assertCacheAccess(int expectedHits, int expectedStored) {
+    assertEquals("hits", expectedHits, myCache.myHits);
+    assertEquals("stored", expectedStored, myCache.myStored);
+  }
+
+  private static class TestInstrumentingBuilder extends ModuleLevelBuilder {
+    private TestInstrumentingBuilder() {
+      super(BuilderCategory.CLASS_INSTRUMENTER);
+    }
+
+    @Override
+    public ExitCode build(CompileContext context,
+                          ModuleChunk chunk,
+                          DirtyFilesHolder<JavaSourceRootDescriptor, ModuleBuildTarget> dirtyFilesHolder,
+                          OutputConsumer outputConsumer) {
+      return ExitCode.NOTHING_DONE;
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableName() {
+      return "Test Instrumenter";
+    }
+  }
+
+  public static class CountingBuildOutputCache extends DirectoryBuildOutputCache {
+    public int myHits;
+    public int myStored;
+
+    public CountingBuildOutputCache(@NotNull File root) {
+      super(root);
+    }
+
+    @Nullable
+    @Override
+    public File get(@NotNull String key) {
+      final File result = super.get(key);
+      if (result != null) {
+        myHits++;
+      }
+      return result;
+    }
+
+    @Override
+    public void put(@NotNull String key, @NotNull File contentDir) throws IOException {
+      if (super.get(key) == null) {
+        myStored++;
+      }
+      super.put(key, contentDir);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jps.incremental.storage;
+
+import com.intellij.openapi.util.io.FileSystemUtil;
+import com.intellij.util.PathUtil;
+import org.jetbrains.jps.builders.BuildTarget;
+import org.jetbrains.jps.builders.JpsBuildTestCase;
+import org.jetbrains.jps.builders.java.JavaModuleBuildTargetType;
+import org.jetbrains.jps.builders.logging.BuildLoggingManager;
+import org.jetbrains.jps.cmdline.ProjectDescriptor;
+import org.jetbrains.jps.incremental.ModuleBuildTarget;
+import org.jetbrains.jps.model.module.JpsModule;
+
+import java.io.File;
+import java.io.IOException;
+
+public class TimestampStorageTest extends JpsBuildTestCase {
+  public void testTouchedFileWithSameContentIsUpToDateWithContentHashes() throws IOException {
+    assertUpToDateAfter(true, "class A {}", true);
+  }
+
+  public void testTouchedFileIsNotUpToDateWithoutContentHashes() throws IOException {
+    assertUpToDateAfter(false, "class A {}", false);
+  }
+
+  public void testChangedFileIsNotUpToDateWithContentHashes() throws IOException {
+    assertUpToDateAfter(true, "class A { int a; }", false);
+  }
+
+  public void testChangedFileIsNotUpToDateWithoutContentHashes() throws IOException {
+    assertUpToDateAfter(false, "class A { int a; }", false);
+  }
+
+  /**
+   * Saves the stamp of a source file, rewrites it with {@code newContent} and a new timestamp and checks whether the storage
+   * considers it up to date
+   */
+  private void assertUpToDateAfter(boolean useContentHashes, String newContent, boolean expectedUpToDate) throws IOException {
+    String path = createFile("src/A.java", "class A {}");
+    JpsModule module = addModule("m", PathUtil.getParentPath(path));
+    File file = new File(path);
+    ProjectDescriptor descriptor = createProjectDescriptor(BuildLoggingManager.DEFAULT);
+    TimestampStorage storage = new TimestampStorage(new File(myDataStorageRoot, "test-timestamps"), descriptor.getTargetsState(),
+                                                    useContentHashes);
+    try {
+      BuildTarget<?> target = new ModuleBuildTarget(module, JavaModuleBuildTargetType.PRODUCTION);
+      long oldStamp = FileSystemUtil.lastModified(file);
+      storage.saveStamp(file, target, oldStamp);
+      assertTrue(storage.isUpToDate(file, target, oldStamp));
+
+      change(path, newContent);
+      long newStamp = FileSystemUtil.lastModified(file);
+      assertTrue(newStamp != oldStamp);
+      assertEquals(expectedUpToDate, storage.isUpToDate(file, target, newStamp));
+      if (expectedUpToDate) {
+        // the new timestamp is remembered, so the file isn't hashed again
+        assertEquals(newStamp, storage.getStamp(file, target));
+      }
+    }
+    finally {
+      storage.close();
+      descriptor.release();
+    }
+  }
+}
@@ -25,19 +25,33 @@ import org.jetbrains.jps.model.JpsElement;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author nik
  */
 public abstract class JpsLoaderBase {
   private final JpsMacroExpander myMacroExpander;
+  /**
+   * Configuration files are shared by many serializers (e.g. misc.xml or other.xml), so each file is parsed only once per loader.
+   * Serializers only read the loaded elements, so the same element may be passed to all of them.
+   */
+  private final Map<File, Element> myLoadedRootElements = new HashMap<File, Element>();
 
   protected JpsLoaderBase(JpsMacroExpander macroExpander) {
     myMacroExpander = macroExpander;
   }
 
   protected Element loadRootElement(final File file) {
-    return loadRootElement(file, myMacroExpander);
+    synchronized (myLoadedRootElements) {
+      Element element = myLoadedRootElements.get(file);
+      if (element == null) {
+        element = loadRootElement(file, myMacroExpander);
+        myLoadedRootElements.put(file, element);
+      }
+      return element;
+    }
   }
 
   protected <E extends JpsElement> void loadComponents(File dir,
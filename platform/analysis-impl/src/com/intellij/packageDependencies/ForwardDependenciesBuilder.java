@@ -18,6 +18,7 @@ package com.intellij.packageDependencies;
 
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.analysis.AnalysisScopeBundle;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
@@ -25,16 +26,21 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ForwardDependenciesBuilder extends DependenciesBuilder {
+  private static final Key<DependencyFilesCache> DEPENDENCY_FILES_KEY = Key.create("DEPENDENCY_FILES_KEY");
+
   private final Map<PsiFile, Set<PsiFile>> myDirectDependencies = new HashMap<PsiFile, Set<PsiFile>>();
 
   public ForwardDependenciesBuilder(@NotNull Project project, @NotNull AnalysisScope scope) {
@@ -71,6 +77,16 @@ public class ForwardDependenciesBuilder extends DependenciesBuilder {
     psiManager.startBatchFilesProcessingMode();
     final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(getProject()).getFileIndex();
     try {
+      if (getScope().getFileCount() > 1) {
+        final List<VirtualFile> files = new ArrayList<VirtualFile>();
+        getScope().accept(new PsiRecursiveElementVisitor() {
+          @Override
+          public void visitFile(final PsiFile file) {
+            ContainerUtil.addIfNotNull(files, file.getVirtualFile());
+          }
+        });
+        prepareDependencies(getProject(), files);
+      }
       getScope().accept(new PsiRecursiveElementVisitor() {
         @Override public void visitFile(final PsiFile file) {
           visit(file, fileIndex, psiManager, 0);
@@ -126,24 +142,12 @@ public class ForwardDependenciesBuilder extends DependenciesBuilder {
         final Set<PsiFile> found = new HashSet<PsiFile>();
         if (!processed.contains(psiFile)) {
           processed.add(psiFile);
-          analyzeFileDependencies(psiFile, new DependencyProcessor() {
-            @Override
-            public void process(PsiElement place, PsiElement dependency) {
-              PsiFile dependencyFile = dependency.getContainingFile();
-              if (dependencyFile != null) {
-                if (viewProvider == dependencyFile.getViewProvider()) return;
-                if (dependencyFile.isPhysical()) {
-                  final VirtualFile virtualFile = dependencyFile.getVirtualFile();
-                  if (virtualFile != null &&
-                      (fileIndex.isInContent(virtualFile) ||
-                       fileIndex.isInLibraryClasses(virtualFile) ||
-                       fileIndex.isInLibrarySource(virtualFile))) {
-                    found.add(dependencyFile);
-                  }
-                }
-              }
+          for (VirtualFile dependencyVirtualFile : getDependencyFiles(psiFile, fileIndex)) {
+            final PsiFile dependencyFile = psiManager.findFile(dependencyVirtualFile);
+            if (dependencyFile != null && viewProvider != dependencyFile.getViewProvider()) {
+              found.add(dependencyFile);
             }
-          });
+          }
           Set<PsiFile> deps = getDependencies().get(file);
           if (deps == null) {
             deps = new HashSet<PsiFile>();
@@ -164,6 +168,88 @@ public class ForwardDependenciesBuilder extends DependenciesBuilder {
     while (isTransitive() && !collectedDeps.isEmpty());
   }
 
+  /**
+   * Computes dependencies of the given files concurrently, so that the following analysis of them only has to look the results up.
+   * Workers give up as soon as a write action is pending instead of blocking it; the files they didn't get to are analyzed later anyway.
+   */
+  public static void prepareDependencies(@NotNull final Project project, @NotNull final List<VirtualFile> files) {
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    if (indicator != null) {
+      indicator.setText(AnalysisScopeBundle.message("package.dependencies.progress.text"));
+    }
+    final AtomicInteger processedFiles = new AtomicInteger();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, true, true, new Processor<VirtualFile>() {
+      @Override
+      public boolean process(VirtualFile virtualFile) {
+        if (indicator != null) {
+          indicator.setFraction((double)processedFiles.incrementAndGet() / files.size());
+        }
+        final PsiFile file = virtualFile.isValid() ? psiManager.findFile(virtualFile) : null;
+        if (file != null && file.getViewProvider().getBaseLanguage() == file.getLanguage()) {
+          getDependencyFiles(file, fileIndex);
+        }
+        return true;
+      }
+    });
+  }
+
+  /**
+   * @return files in the project content or libraries which the given file depends on, possibly including the file itself.
+   * The result is reused until the file is changed, declarations outside of code blocks are changed anywhere in the project or
+   * the "skip import statements" setting is switched, so repeating the analysis after editing method bodies doesn't resolve the references again.
+   */
+  @NotNull
+  private static VirtualFile[] getDependencyFiles(@NotNull PsiFile file, @NotNull final ProjectFileIndex fileIndex) {
+    final VirtualFile virtualFile = file.getVirtualFile();
+    final Project project = file.getProject();
+    final long fileStamp = file.getModificationStamp();
+    final long structureStamp = PsiModificationTracker.SERVICE.getInstance(project).getOutOfCodeBlockModificationCount() +
+                                ProjectRootManager.getInstance(project).getModificationCount();
+    final boolean skipImports = DependencyValidationManager.getInstance(project).skipImportStatements();
+    DependencyFilesCache cache = virtualFile == null ? null : virtualFile.getUserData(DEPENDENCY_FILES_KEY);
+    if (cache != null && cache.myFileStamp == fileStamp && cache.myStructureStamp == structureStamp && cache.mySkipImports == skipImports) {
+      return cache.myDependencies;
+    }
+
+    final Set<VirtualFile> dependencies = new LinkedHashSet<VirtualFile>();
+    analyzeFileDependencies(file, new DependencyProcessor() {
+      @Override
+      public void process(PsiElement place, PsiElement dependency) {
+        PsiFile dependencyFile = dependency.getContainingFile();
+        if (dependencyFile != null && dependencyFile.isPhysical()) {
+          final VirtualFile dependencyVirtualFile = dependencyFile.getVirtualFile();
+          if (dependencyVirtualFile != null &&
+              (fileIndex.isInContent(dependencyVirtualFile) ||
+               fileIndex.isInLibraryClasses(dependencyVirtualFile) ||
+               fileIndex.isInLibrarySource(dependencyVirtualFile))) {
+            dependencies.add(dependencyVirtualFile);
+          }
+        }
+      }
+    });
+    final VirtualFile[] result = VfsUtilCore.toVirtualFileArray(dependencies);
+    if (virtualFile != null && file.isPhysical()) {
+      virtualFile.putUserData(DEPENDENCY_FILES_KEY, new DependencyFilesCache(fileStamp, structureStamp, skipImports, result));
+    }
+    return result;
+  }
+
+  private static class DependencyFilesCache {
+    private final long myFileStamp;
+    private final long myStructureStamp;
+    private final boolean mySkipImports;
+    private final VirtualFile[] myDependencies;
+
+    private DependencyFilesCache(long fileStamp, long structureStamp, boolean skipImports, @NotNull VirtualFile[] dependencies) {
+      myFileStamp = fileStamp;
+      myStructureStamp = structureStamp;
+      mySkipImports = skipImports;
+      myDependencies = dependencies;
+    }
+  }
+
   @Override
   public Map<PsiFile, Set<PsiFile>> getDirectDependencies() {
     return myDirectDependencies;
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2000-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.search;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Allows to skip files which contain no code references to an element (e.g. according to an index built over compiler output)
+ * when searching for its usages. An optimizer must keep the files whose references may be missing from its index in the scope.
+ * Occurrences in comments, strings and foreign languages are still searched for in all files.
+ */
+public abstract class CodeReferencesScopeOptimizer {
+  public static final ExtensionPointName<CodeReferencesScopeOptimizer> EP_NAME =
+    ExtensionPointName.create("com.intellij.codeReferencesScopeOptimizer");
+
+  /**
+   * @return scope containing all files which may reference the element from code, or null if nothing is known about the element
+   */
+  @Nullable
+  public abstract GlobalSearchScope getScopeWithCodeReferences(@NotNull PsiElement element);
+
+  /**
+   * @return scope containing all files which may reference any of the elements from code, or null if it's unknown for some of them
+   */
+  @Nullable
+  public static GlobalSearchScope getCodeReferencesScope(@NotNull PsiElement... elements) {
+    final CodeReferencesScopeOptimizer[] optimizers = EP_NAME.getExtensions();
+    if (optimizers.length == 0 || elements.length == 0) return null;
+
+    GlobalSearchScope result = null;
+    for (PsiElement element : elements) {
+      GlobalSearchScope elementScope = null;
+      for (CodeReferencesScopeOptimizer optimizer : optimizers) {
+        final GlobalSearchScope scope = optimizer.getScopeWithCodeReferences(element);
+        if (scope != null) {
+          elementScope = elementScope == null ? scope : elementScope.intersectWith(scope);
+        }
+      }
+      if (elementScope == null) return null;
+      result = result == null ? elementScope : result.uniteWith(elementScope);
+    }
+    return result;
+  }
+
+  /**
+   * Same as {@link SearchRequestCollector#searchWord(String, SearchScope, short, boolean, RequestResultProcessor)}, but code occurrences
+   * are looked for only in files from {@link #getCodeReferencesScope(PsiElement...)} of the given targets.
+   */
+  public static void searchWord(@NotNull SearchRequestCollector collector,
+                                @NotNull String word,
+                                @NotNull SearchScope searchScope,
+                                short searchContext,
+                                boolean caseSensitive,
+                                @NotNull RequestResultProcessor processor,
+                                @NotNull PsiElement... targets) {
+    final GlobalSearchScope codeScope = searchScope instanceof GlobalSearchScope && (searchContext & UsageSearchContext.IN_CODE) != 0
+                                        ? getCodeReferencesScope(targets)
+                                        : null;
+    if (codeScope == null) {
+      collector.searchWord(word, searchScope, searchContext, caseSensitive, processor);
+      return;
+    }
+
+    collector.searchWord(word, searchScope.intersectWith(codeScope), searchContext, caseSensitive, processor);
+    final short nonCodeContext = (short)(searchContext & ~UsageSearchContext.IN_CODE);
+    if (nonCodeContext != 0) {
+      collector.searchWord(word, searchScope.intersectWith(GlobalSearchScope.notScope(codeScope)), nonCodeContext, caseSensitive, processor);
+    }
+  }
+}
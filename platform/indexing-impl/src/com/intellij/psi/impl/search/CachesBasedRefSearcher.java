@@ -10,7 +10,10 @@ import com.intellij.psi.PsiReference;
 import com.intellij.psi.impl.SyntheticFileSystemItem;
 import com.intellij.psi.meta.PsiMetaData;
 import com.intellij.psi.meta.PsiMetaOwner;
+import com.intellij.psi.search.CodeReferencesScopeOptimizer;
 import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.SingleTargetRequestResultProcessor;
+import com.intellij.psi.search.UsageSearchContext;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
@@ -48,7 +51,10 @@ public class CachesBasedRefSearcher extends QueryExecutorBase<PsiReference, Refe
     }
     if (StringUtil.isNotEmpty(text)) {
       final SearchScope searchScope = p.getEffectiveSearchScope();
-      p.getOptimizer().searchWord(text, searchScope, refElement.getLanguage().isCaseSensitive(), refElement);
+      final short searchContext = (short)(UsageSearchContext.IN_CODE | UsageSearchContext.IN_FOREIGN_LANGUAGES | UsageSearchContext.IN_COMMENTS
+                                  | (refElement instanceof PsiFileSystemItem ? UsageSearchContext.IN_STRINGS : 0));
+      CodeReferencesScopeOptimizer.searchWord(p.getOptimizer(), text, searchScope, searchContext, refElement.getLanguage().isCaseSensitive(),
+                                              new SingleTargetRequestResultProcessor(refElement), refElement);
     }
   }
 }
\ No newline at end of file
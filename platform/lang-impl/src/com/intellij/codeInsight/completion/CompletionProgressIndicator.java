@@ -122,6 +122,8 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
       ContainerUtil.<LookupElement>identityStrategy());
   private final PropertyChangeListener myLookupManagerListener;
   private final int myStartCaret;
+  private final long myStartTime = System.currentTimeMillis();
+  private volatile long myTimeToFirstItem = -1;
 
   public CompletionProgressIndicator(final Editor editor,
                                      CompletionParameters parameters,
@@ -387,6 +389,7 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
     myCount++;
 
     if (myCount == 1) {
+      myTimeToFirstItem = System.currentTimeMillis() - myStartTime;
       new Alarm(Alarm.ThreadToUse.SHARED_THREAD, this).addRequest(new Runnable() {
         @Override
         public void run() {
@@ -768,6 +771,10 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
     weigher.waitFor();
     ProgressManager.checkCanceled();
 
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Completion " + myParameters.getCompletionType() + " of " + myCount + " items: first item in " + myTimeToFirstItem +
+                " ms, complete list in " + (System.currentTimeMillis() - myStartTime) + " ms");
+    }
     return result;
   }
 
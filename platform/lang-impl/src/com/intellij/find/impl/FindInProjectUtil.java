@@ -17,6 +17,7 @@
 package com.intellij.find.impl;
 
 import com.intellij.BundleBase;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.find.*;
 import com.intellij.find.ngrams.TrigramIndex;
 import com.intellij.navigation.ItemPresentation;
@@ -25,10 +26,12 @@ import com.intellij.openapi.actionSystem.LangDataKeys;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ApplicationNamesInfo;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditor;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
 import com.intellij.openapi.fileTypes.FileTypeManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
@@ -65,6 +68,7 @@ import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.FileBasedIndex;
 import gnu.trove.THashSet;
+import gnu.trove.TIntArrayList;
 import gnu.trove.TIntHashSet;
 import gnu.trove.TIntIterator;
 import org.jetbrains.annotations.NotNull;
@@ -73,6 +77,9 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 public class FindInProjectUtil {
@@ -201,16 +208,12 @@ public class FindInProjectUtil {
     final Collection<PsiFile> psiFiles = getFilesToSearchIn(findModel, project, psiDirectory);
     try {
       final Set<PsiFile> largeFiles = new THashSet<PsiFile>();
-
-      int i = 0;
-      long totalFilesSize = 0;
-      int count = 0;
-      final boolean[] warningShown = {false};
+      final Set<VirtualFile> uniqueFiles = new THashSet<VirtualFile>();
+      final List<PsiFile> filesToScan = new ArrayList<PsiFile>(psiFiles.size());
 
       for (final PsiFile psiFile : psiFiles) {
         final VirtualFile virtualFile = psiFile.getVirtualFile();
-        final int index = i++;
-        if (virtualFile == null) continue;
+        if (virtualFile == null || !uniqueFiles.add(virtualFile)) continue;
 
         long fileLength = UsageViewManagerImpl.getFileLength(virtualFile);
         if (fileLength == -1) continue; // Binary or invalid
@@ -221,30 +224,60 @@ public class FindInProjectUtil {
           largeFiles.add(psiFile);
           continue;
         }
+        filesToScan.add(psiFile);
+      }
 
-        if (progress != null) {
-          progress.checkCanceled();
-          progress.setFraction((double)index / psiFiles.size());
-          String text = FindBundle.message("find.searching.for.string.in.file.progress",
-                                           findModel.getStringToFind(), virtualFile.getPresentableUrl());
-          progress.setText(text);
-          progress.setText2(FindBundle.message("find.searching.for.string.in.file.occurrences.progress", count));
+      final boolean concurrent = canSearchWithoutDocument(findModel) && filesToScan.size() > 1;
+      final Processor<UsageInfo> fileConsumer = concurrent ? new Processor<UsageInfo>() {
+        @Override
+        public synchronized boolean process(UsageInfo info) {
+          return consumer.process(info);
         }
+      } : consumer;
+
+      final AtomicInteger processedFiles = new AtomicInteger();
+      final AtomicInteger count = new AtomicInteger();
+      final AtomicLong totalFilesSize = new AtomicLong();
+      final AtomicBoolean warningShown = new AtomicBoolean();
+
+      final Processor<PsiFile> fileProcessor = new Processor<PsiFile>() {
+        @Override
+        public boolean process(PsiFile psiFile) {
+          final VirtualFile virtualFile = psiFile.getVirtualFile();
+          if (virtualFile == null) return true;
+
+          if (progress != null) {
+            progress.checkCanceled();
+            progress.setFraction((double)processedFiles.incrementAndGet() / filesToScan.size());
+            String text = FindBundle.message("find.searching.for.string.in.file.progress",
+                                             findModel.getStringToFind(), virtualFile.getPresentableUrl());
+            progress.setText(text);
+            progress.setText2(FindBundle.message("find.searching.for.string.in.file.occurrences.progress", count.get()));
+          }
 
-        int countInFile = processUsagesInFile(psiFile, findModel, consumer);
+          int countInFile = processUsagesInFile(psiFile, findModel, fileConsumer);
 
-        count += countInFile;
-        if (countInFile > 0) {
-          totalFilesSize += fileLength;
-          if (totalFilesSize > FILES_SIZE_LIMIT && !warningShown[0]) {
-            warningShown[0] = true;
-            String message = FindBundle.message("find.excessive.total.size.prompt", UsageViewManagerImpl.presentableSize(totalFilesSize),
-                                                ApplicationNamesInfo.getInstance().getProductName());
-            UsageLimitUtil.showAndCancelIfAborted(project, message);
+          if (countInFile > 0) {
+            count.addAndGet(countInFile);
+            if (totalFilesSize.addAndGet(virtualFile.getLength()) > FILES_SIZE_LIMIT && warningShown.compareAndSet(false, true)) {
+              String message = FindBundle.message("find.excessive.total.size.prompt",
+                                                  UsageViewManagerImpl.presentableSize(totalFilesSize.get()),
+                                                  ApplicationNamesInfo.getInstance().getProductName());
+              showAndCancelIfAborted(project, message, progress);
+            }
           }
+          return true;
         }
-      }
+      };
 
+      if (concurrent) {
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(filesToScan, progress, false, false, fileProcessor);
+      }
+      else {
+        for (PsiFile psiFile : filesToScan) {
+          fileProcessor.process(psiFile);
+        }
+      }
 
       if (!largeFiles.isEmpty()) {
         processPresentation.setLargeFilesWereNotScanned(largeFiles);
@@ -259,6 +292,30 @@ public class FindInProjectUtil {
     }
   }
 
+  /**
+   * The files may be processed in pooled threads, so the warning is shown in the EDT with the modality of the search progress
+   */
+  private static void showAndCancelIfAborted(@NotNull final Project project,
+                                             @NotNull final String message,
+                                             @Nullable ProgressIndicator progress) {
+    if (ApplicationManager.getApplication().isDispatchThread()) {
+      UsageLimitUtil.showAndCancelIfAborted(project, message);
+      return;
+    }
+    final UsageLimitUtil.Result[] result = {UsageLimitUtil.Result.CONTINUE};
+    ApplicationManager.getApplication().invokeAndWait(new Runnable() {
+      @Override
+      public void run() {
+        if (!project.isDisposed()) {
+          result[0] = UsageLimitUtil.showTooManyUsagesWarning(project, message);
+        }
+      }
+    }, progress != null ? progress.getModalityState() : ModalityState.defaultModalityState());
+    if (result[0] != UsageLimitUtil.Result.CONTINUE) {
+      throw new ProcessCanceledException();
+    }
+  }
+
   private static int processUsagesInFile(@NotNull final PsiFile psiFile,
                                          @NotNull final FindModel findModel,
                                          @NotNull final Processor<UsageInfo> consumer) {
@@ -276,10 +333,16 @@ public class FindInProjectUtil {
     final VirtualFile virtualFile = psiFile.getVirtualFile();
     if (virtualFile == null) return 0;
     if (virtualFile.getFileType().isBinary()) return 0; // do not decompile .class files
-    final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
-    if (document == null) return 0;
     final int[] offset = {0};
     int count = 0;
+    if (canSearchWithoutDocument(findModel) && FileDocumentManager.getInstance().getCachedDocument(virtualFile) == null) {
+      int found = processUsagesInFileText(psiFile, virtualFile, findModel, consumer, offset);
+      if (found >= 0) return found;
+      // the file has been changed since its text was loaded, continue with its document
+      count = -found - 1;
+    }
+    final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
+    if (document == null) return count;
     int found;
     do {
       found = ApplicationManager.getApplication().runReadAction(new Computable<Integer>() {
@@ -287,7 +350,7 @@ public class FindInProjectUtil {
         @NotNull
         public Integer compute() {
           if (!psiFile.isValid()) return 0;
-          return addToUsages(document, consumer, findModel, psiFile, offset, USAGES_PER_READ_ACTION);
+          return addToUsages(document.getCharsSequence(), consumer, findModel, psiFile, offset, USAGES_PER_READ_ACTION);
         }
       });
       count += found;
@@ -296,6 +359,93 @@ public class FindInProjectUtil {
     return count;
   }
 
+  /**
+   * Matches the file text loaded from disk outside of read action and creates usages for the found occurrences in batches.
+   * Doesn't create a document for the files which don't contain the string to find.
+   *
+   * @return number of found usages or, if the file has been changed during the search or its text can't be loaded,
+   * -1 - number of usages found before that
+   */
+  private static int processUsagesInFileText(@NotNull final PsiFile psiFile,
+                                             @NotNull final VirtualFile virtualFile,
+                                             @NotNull final FindModel findModel,
+                                             @NotNull final Processor<UsageInfo> consumer,
+                                             @NotNull final int[] offsetRef) {
+    final long stamp = virtualFile.getModificationStamp();
+    final CharSequence text;
+    try {
+      text = LoadTextUtil.loadText(virtualFile);
+    }
+    catch (ProcessCanceledException e) {
+      throw e;
+    }
+    catch (RuntimeException e) {
+      // the text can't be loaded from disk, let the caller search in the document
+      return -1;
+    }
+    final FindManager findManager = FindManager.getInstance(psiFile.getProject());
+    final List<FindResult> results = new ArrayList<FindResult>();
+    final TIntArrayList searchOffsets = new TIntArrayList();
+    int count = 0;
+    while (true) {
+      ProgressManager.checkCanceled();
+      results.clear();
+      searchOffsets.clear();
+
+      int offset = offsetRef[0];
+      while (offset < text.length() && results.size() < USAGES_PER_READ_ACTION) {
+        FindResult result = findManager.findString(text, offset, findModel, virtualFile);
+        if (!result.isStringFound()) {
+          offset = text.length();
+          break;
+        }
+        results.add(result);
+        searchOffsets.add(offset);
+
+        final int prevOffset = offset;
+        offset = result.getEndOffset();
+        if (prevOffset == offset) {
+          // for regular expr the size of the match could be zero -> could be infinite loop in finding usages!
+          ++offset;
+        }
+      }
+      if (results.isEmpty()) return count;
+
+      final Integer delivered = ApplicationManager.getApplication().runReadAction(new Computable<Integer>() {
+        @Override
+        public Integer compute() {
+          if (!psiFile.isValid()) return 0;
+          final Document document = FileDocumentManager.getInstance().getCachedDocument(virtualFile);
+          if (virtualFile.getModificationStamp() != stamp || document != null && document.getModificationStamp() != stamp) return null;
+
+          final SearchScope customScope = findModel.getCustomScope();
+          for (int i = 0; i < results.size(); i++) {
+            final FindResult result = results.get(i);
+            if (customScope instanceof LocalSearchScope &&
+                !((LocalSearchScope)customScope).containsRange(psiFile, new TextRange(result.getStartOffset(), result.getEndOffset()))) {
+              return -i - 1;
+            }
+            if (!consumer.process(new FindResultUsageInfo(findManager, psiFile, searchOffsets.get(i), findModel, result))) {
+              throw new ProcessCanceledException();
+            }
+          }
+          return results.size();
+        }
+      });
+      if (delivered == null) return -count - 1;
+      if (delivered < 0) return count - delivered - 1;
+      if (delivered == 0) return count;
+
+      count += delivered;
+      offsetRef[0] = offset;
+    }
+  }
+
+  private static boolean canSearchWithoutDocument(@NotNull FindModel findModel) {
+    // search in comments and string literals caches lexer data in the model and reads the file's PSI
+    return !findModel.isInCommentsOnly() && !findModel.isInStringLiteralsOnly();
+  }
+
   @NotNull
   private static Collection<PsiFile> getFilesToSearchIn(@NotNull final FindModel findModel,
                                                         @NotNull final Project project,
@@ -526,11 +676,10 @@ public class FindInProjectUtil {
            && (findModel.getCustomScope() == null || findModel.getCustomScope() instanceof GlobalSearchScope);
   }
 
-  private static int addToUsages(@NotNull Document document, @NotNull Processor<UsageInfo> consumer, @NotNull FindModel findModel,
+  private static int addToUsages(@NotNull CharSequence text, @NotNull Processor<UsageInfo> consumer, @NotNull FindModel findModel,
                                  @NotNull final PsiFile psiFile, int[] offsetRef, int maxUsages) {
     int count = 0;
-    CharSequence text = document.getCharsSequence();
-    int textLength = document.getTextLength();
+    int textLength = text.length();
     int offset = offsetRef[0];
 
     Project project = psiFile.getProject();
@@ -19,12 +19,14 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.pom.Navigatable;
 import com.intellij.usages.Usage;
+import com.intellij.usages.UsageInfo2UsageAdapter;
 import com.intellij.usages.UsageGroup;
 import com.intellij.usages.UsageView;
 import com.intellij.usages.rules.MergeableUsage;
 import com.intellij.util.Consumer;
 import com.intellij.util.SmartList;
 import gnu.trove.THashMap;
+import gnu.trove.TIntObjectHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -38,11 +40,14 @@ import java.util.*;
  */
 public class GroupNode extends Node implements Navigatable, Comparable<GroupNode> {
   private static final NodeComparator COMPARATOR = new NodeComparator();
+  private static final int NO_MERGE_LINE = -1;
   private final Object lock = new Object();
   private final UsageGroup myGroup;
   private final int myRuleIndex;
   private final Map<UsageGroup, GroupNode> mySubgroupNodes = new THashMap<UsageGroup, GroupNode>();
   private final List<UsageNode> myUsageNodes = new SmartList<UsageNode>();
+  // nodes of mergeable usages by line, to avoid quadratic merging of huge groups; guarded by lock, rebuilt lazily after removals
+  private TIntObjectHashMap<List<UsageNode>> myMergeableNodes;
   @NotNull private final UsageViewTreeModelBuilder myUsageTreeModel;
   private volatile int myRecursiveUsageCount = 0;
 
@@ -106,6 +111,7 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
       mySubgroupNodes.clear();
       myRecursiveUsageCount = 0;
       myUsageNodes.clear();
+      myMergeableNodes = null;
     }
     myTreeModel.reload(this);
   }
@@ -113,18 +119,56 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
   @Nullable UsageNode tryMerge(@NotNull Usage usage) {
     if (!(usage instanceof MergeableUsage)) return null;
     MergeableUsage mergeableUsage = (MergeableUsage)usage;
-    for (UsageNode node : myUsageNodes) {
-      Usage original = node.getUsage();
+    TIntObjectHashMap<List<UsageNode>> mergeableNodes = getMergeableNodes();
+    int line = getMergeLine(usage);
+    if (line != NO_MERGE_LINE) {
+      UsageNode node = tryMerge(mergeableUsage, mergeableNodes.get(line));
+      if (node != null) return node;
+    }
+    return tryMerge(mergeableUsage, mergeableNodes.get(NO_MERGE_LINE));
+  }
+
+  @Nullable
+  private static UsageNode tryMerge(@NotNull MergeableUsage mergeableUsage, @Nullable List<UsageNode> candidates) {
+    if (candidates == null) return null;
+    for (UsageNode node : candidates) {
+      MergeableUsage original = (MergeableUsage)node.getUsage();
       if (original == mergeableUsage) {
         // search returned duplicate usage, ignore
         return node;
       }
-      if (original instanceof MergeableUsage) {
-        if (((MergeableUsage)original).merge(mergeableUsage)) return node;
+      if (original.merge(mergeableUsage)) return node;
+    }
+    return null;
+  }
+
+  // UsageInfo2UsageAdapter merges only with usages from the same line, other mergeable usages may merge with anything
+  private static int getMergeLine(@NotNull Usage usage) {
+    return usage instanceof UsageInfo2UsageAdapter ? Math.max(((UsageInfo2UsageAdapter)usage).getLine(), 0) : NO_MERGE_LINE;
+  }
+
+  @NotNull
+  private TIntObjectHashMap<List<UsageNode>> getMergeableNodes() {
+    TIntObjectHashMap<List<UsageNode>> mergeableNodes = myMergeableNodes;
+    if (mergeableNodes == null) {
+      myMergeableNodes = mergeableNodes = new TIntObjectHashMap<List<UsageNode>>();
+      for (UsageNode node : myUsageNodes) {
+        addMergeableNode(mergeableNodes, node);
       }
     }
+    return mergeableNodes;
+  }
 
-    return null;
+  private static void addMergeableNode(@NotNull TIntObjectHashMap<List<UsageNode>> mergeableNodes, @NotNull UsageNode node) {
+    Usage usage = node.getUsage();
+    if (!(usage instanceof MergeableUsage)) return;
+    int line = getMergeLine(usage);
+    List<UsageNode> nodes = mergeableNodes.get(line);
+    if (nodes == null) {
+      nodes = new SmartList<UsageNode>();
+      mergeableNodes.put(line, nodes);
+    }
+    nodes.add(node);
   }
 
   public boolean removeUsage(@NotNull UsageNode usage) {
@@ -147,6 +191,9 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
     boolean removed;
     synchronized (lock) {
       removed = myUsageNodes.remove(usage);
+      if (removed) {
+        myMergeableNodes = null;
+      }
     }
     if (removed) {
       doUpdate();
@@ -160,6 +207,9 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
     boolean removed;
     synchronized (lock) {
       removed = myUsageNodes.removeAll(usages);
+      if (removed) {
+        myMergeableNodes = null;
+      }
     }
 
     Collection<GroupNode> groupNodes = mySubgroupNodes.values();
@@ -202,6 +252,9 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
       }
       node = new UsageNode(usage, getBuilder());
       myUsageNodes.add(node);
+      if (myMergeableNodes != null) {
+        addMergeableNode(myMergeableNodes, node);
+      }
     }
 
     if (!getBuilder().isDetachedMode()) {
@@ -301,14 +354,19 @@ public class GroupNode extends Node implements Navigatable, Comparable<GroupNode
   }
 
   private int getNodeInsertionIndex(@NotNull DefaultMutableTreeNode node) {
-    Enumeration children = children();
-    int idx = 0;
-    while (children.hasMoreElements()) {
-      DefaultMutableTreeNode child = (DefaultMutableTreeNode)children.nextElement();
-      if (COMPARATOR.compare(child, node) >= 0) break;
-      idx++;
+    // children are kept sorted by COMPARATOR, find the first one which is not less than the node
+    int low = 0;
+    int high = getChildCount();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (COMPARATOR.compare((DefaultMutableTreeNode)getChildAt(mid), node) < 0) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
     }
-    return idx;
+    return low;
   }
 
   private static class NodeComparator implements Comparator<DefaultMutableTreeNode> {
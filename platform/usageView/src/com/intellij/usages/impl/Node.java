@@ -15,7 +15,6 @@
  */
 package com.intellij.usages.impl;
 
-import com.intellij.openapi.util.Comparing;
 import com.intellij.usages.UsageView;
 import org.intellij.lang.annotations.MagicConstant;
 import org.jetbrains.annotations.NotNull;
@@ -28,7 +27,8 @@ import javax.swing.tree.DefaultTreeModel;
  */
 public abstract class Node extends DefaultMutableTreeNode {
   protected final DefaultTreeModel myTreeModel;
-  private String myCachedText;
+  // the text itself is not kept to let usages release their presentation, its length and hash code are compared instead
+  private long myCachedTextHash;
 
   private byte myCachedFlags; // bit packed flags below:
   private static final int INVALID_FLAG = 0;
@@ -36,8 +36,9 @@ public abstract class Node extends DefaultMutableTreeNode {
   private static final int READ_ONLY_COMPUTED_FLAG = 2;
   private static final int EXCLUDED_FLAG = 3;
   private static final int UPDATED_FLAG = 4;
+  private static final int TEXT_CACHED_FLAG = 5;
 
-  @MagicConstant(intValues = {INVALID_FLAG, READ_ONLY_FLAG, READ_ONLY_COMPUTED_FLAG, EXCLUDED_FLAG, UPDATED_FLAG})
+  @MagicConstant(intValues = {INVALID_FLAG, READ_ONLY_FLAG, READ_ONLY_COMPUTED_FLAG, EXCLUDED_FLAG, UPDATED_FLAG, TEXT_CACHED_FLAG})
   @interface FlagConstant {}
 
   private boolean isFlagSet(@FlagConstant int flag) {
@@ -62,7 +63,7 @@ public abstract class Node extends DefaultMutableTreeNode {
   /**
    * isDataXXX methods perform actual (expensive) data computation.
    * Called from  {@link #update(com.intellij.usages.UsageView)})
-   * to be compared later with cached data stored in {@link #myCachedFlags} and {@link #myCachedText}
+   * to be compared later with cached data stored in {@link #myCachedFlags} and {@link #myCachedTextHash}
    */
   protected abstract boolean isDataValid();
   protected abstract boolean isDataReadOnly();
@@ -98,17 +99,20 @@ public abstract class Node extends DefaultMutableTreeNode {
     boolean isReadOnly = isDataReadOnly();
     boolean isExcluded = isDataExcluded();
     String text = getText(view);
+    long textHash = text == null ? -1 : (long)text.length() << 32 | text.hashCode() & 0xFFFFFFFFL;
 
     boolean cachedValid = isValid();
     boolean cachedReadOnly = isFlagSet(READ_ONLY_FLAG);
     boolean cachedExcluded = isFlagSet(EXCLUDED_FLAG);
 
-    if (isDataValid != cachedValid || isReadOnly != cachedReadOnly || isExcluded != cachedExcluded || !Comparing.equal(myCachedText, text)) {
+    if (isDataValid != cachedValid || isReadOnly != cachedReadOnly || isExcluded != cachedExcluded ||
+        !isFlagSet(TEXT_CACHED_FLAG) || myCachedTextHash != textHash) {
       setFlag(INVALID_FLAG, !isDataValid);
       setFlag(READ_ONLY_FLAG, isReadOnly);
       setFlag(EXCLUDED_FLAG, isExcluded);
 
-      myCachedText = text;
+      myCachedTextHash = textHash;
+      setFlag(TEXT_CACHED_FLAG, true);
       updateNotify();
       myTreeModel.nodeChanged(this);
     }
@@ -22,6 +22,8 @@ import org.jetbrains.asm4.ClassVisitor;
 import org.jetbrains.asm4.MethodVisitor;
 import org.jetbrains.asm4.Opcodes;
 import org.jetbrains.jps.builders.JpsBuildTestCase;
+import org.jetbrains.jps.incremental.cache.BuildOutputCache;
+import org.jetbrains.jps.incremental.cache.DirectoryBuildOutputCache;
 import org.jetbrains.jps.incremental.java.JavaBuilder;
 import org.jetbrains.jps.model.java.JpsJavaExtensionService;
 import org.jetbrains.jps.model.module.JpsModule;
@@ -97,6 +99,21 @@ public class FormsBuilderTest extends JpsBuildTestCase {
     makeAll().assertUpToDate();
   }
 
+  public void testFormsAreNotRestoredFromOutputCache() throws IOException {
+    BuildOutputCache.setTestInstance(new DirectoryBuildOutputCache(FileUtil.createTempDirectory("build-output-cache", null)));
+    try {
+      JpsModule m = addModule("m", copyToProject(SIMPLE_FORM_PATH, "src"));
+      rebuildAll();
+      rebuildAll();
+      assertCompiled(JavaBuilder.BUILDER_NAME, "src/xxx/MyForm.java", "src/xxx/Constants.java");
+      assertCompiled(FormsInstrumenter.BUILDER_NAME, "src/xxx/MyForm.form");
+      assertInstrumented(m, "xxx/MyForm.class");
+    }
+    finally {
+      BuildOutputCache.setTestInstance(null);
+    }
+  }
+
   private static void assertNotInstrumented(JpsModule m, final String classPath) {
     assertFalse(isInstrumented(m, classPath));
   }